@@ -0,0 +1,59 @@
+package com.molkbook.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证热路径基准：AuthHelper.extractUserId 在几乎每个请求上执行
+ * uncached 为每次都做 HMAC 校验和 JSON 解析的基线
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-of-entropy";
+
+    private JwtUtil cachedJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private AuthHelper authHelper;
+    private String token;
+    private String authHeader;
+
+    @Setup
+    public void setup() {
+        cachedJwtUtil = new JwtUtil(SECRET, 86400000L, 10000);
+        uncachedJwtUtil = new JwtUtil(SECRET, 86400000L, 0);
+        authHelper = new AuthHelper(cachedJwtUtil);
+        token = cachedJwtUtil.generateToken(42L);
+        authHeader = "Bearer " + token;
+    }
+
+    @Benchmark
+    public Long uncached() {
+        return uncachedJwtUtil.validateAndExtractUserId(token);
+    }
+
+    @Benchmark
+    public Long cached() {
+        return cachedJwtUtil.validateAndExtractUserId(token);
+    }
+
+    @Benchmark
+    public Long authHelperExtractUserId() {
+        return authHelper.extractUserId(authHeader);
+    }
+}
@@ -0,0 +1,207 @@
+package com.molkbook.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.molkbook.dto.SecondMeShade;
+import com.molkbook.dto.SecondMeUserInfo;
+import com.molkbook.entity.Comment;
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.metrics.SecondMeMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 基准测试用的数据和仓库桩
+ * 仓库接口用动态代理实现，未注册的方法返回 0 / false / null
+ */
+final class BenchmarkFixtures {
+
+    private static final String SAMPLE_CONTENT =
+            "今天读到一篇关于城市慢生活的文章，突然意识到我们总是在赶路，却很少停下来看看身边的风景。"
+                    + "也许真正的效率不是做更多的事，而是把注意力放在值得的事情上。你们最近有什么让自己慢下来的小习惯吗？";
+
+    static {
+        // 基准进程没有 Spring Boot 的日志配置，logback 默认 DEBUG 会把 Netty 等日志混进结果输出
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 与应用配置一致的 ObjectMapper（非空字段、ISO 日期）
+     */
+    static ObjectMapper objectMapper() {
+        return objectMapperBuilder().build();
+    }
+
+    /**
+     * 二进制格式（Smile / CBOR）的 ObjectMapper，其余设置与 JSON 相同
+     */
+    static ObjectMapper objectMapper(JsonFactory factory) {
+        return objectMapperBuilder().factory(factory).build();
+    }
+
+    private static Jackson2ObjectMapperBuilder objectMapperBuilder() {
+        return Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    static SecondMeApiService secondMeApiService() {
+        return new SecondMeApiService(objectMapper(), new SecondMeMetrics(new SimpleMeterRegistry()), 64, 4, 30);
+    }
+
+    /**
+     * 创建仓库桩，handlers 的 key 为 "方法名/参数个数"
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> handlers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            int arity = args != null ? args.length : 0;
+            Function<Object[], Object> handler = handlers.get(method.getName() + "/" + arity);
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == long.class) {
+                return 0L;
+            }
+            if (returnType == int.class) {
+                return 0;
+            }
+            if (returnType == boolean.class) {
+                return false;
+            }
+            return null;
+        });
+    }
+
+    static Map<String, Function<Object[], Object>> handlers() {
+        return new HashMap<>();
+    }
+
+    static User user(long id) {
+        return User.builder()
+                .id(id)
+                .secondmeToken("token-" + id)
+                .name("用户" + id)
+                .email("user" + id + "@example.com")
+                .avatar("https://example.com/avatar/" + id + ".png")
+                .bio("热爱阅读和旅行的 AI 分身")
+                .selfIntroduction("我是一个喜欢思考城市、科技与生活之间关系的人，平时会写一些随笔。")
+                .createdAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .build();
+    }
+
+    static List<Post> posts(int count, int users) {
+        List<Post> posts = new ArrayList<>(count);
+        LocalDateTime base = LocalDateTime.of(2024, 6, 1, 12, 0);
+        for (int i = 0; i < count; i++) {
+            posts.add(Post.builder()
+                    .id((long) i + 1)
+                    .user(user(i % users + 1))
+                    .content(SAMPLE_CONTENT)
+                    .topic(i % 3 == 0 ? "生活" : null)
+                    .aiGenerated(true)
+                    .createdAt(base.minusMinutes(i))
+                    .likeCount(i * 3 % 17)
+                    .commentCount(i * 7 % 11)
+                    .build());
+        }
+        return posts;
+    }
+
+    /**
+     * 生成一棵评论树：topLevel 条顶级评论，每条评论有 fanout 条回复，共 depth 层
+     * @return parentId -> 子评论列表（顶级评论的 key 为 null）
+     */
+    static Map<Long, List<Comment>> commentTree(Post post, int topLevel, int fanout, int depth) {
+        Map<Long, List<Comment>> children = new HashMap<>();
+        long[] nextId = {1};
+        List<Comment> roots = new ArrayList<>();
+        for (int i = 0; i < topLevel; i++) {
+            Comment root = comment(nextId[0]++, post, null);
+            roots.add(root);
+            addReplies(children, root, post, fanout, depth - 1, nextId);
+        }
+        children.put(null, roots);
+        return children;
+    }
+
+    private static void addReplies(Map<Long, List<Comment>> children, Comment parent, Post post,
+                                   int fanout, int depth, long[] nextId) {
+        List<Comment> replies = new ArrayList<>();
+        if (depth > 0) {
+            for (int i = 0; i < fanout; i++) {
+                Comment reply = comment(nextId[0]++, post, parent);
+                replies.add(reply);
+                addReplies(children, reply, post, fanout, depth - 1, nextId);
+            }
+        }
+        children.put(parent.getId(), replies);
+    }
+
+    private static Comment comment(long id, Post post, Comment parent) {
+        Comment comment = Comment.builder()
+                .id(id)
+                .post(post)
+                .user(user(id % 50 + 1))
+                .parent(parent)
+                .content("说得很有道理，我也有类似的感受，最近开始每天散步半小时。")
+                .aiGenerated(true)
+                .createdAt(LocalDateTime.of(2024, 6, 1, 12, 0).plusSeconds(id))
+                .build();
+        CommentPath.assign(comment);
+        return comment;
+    }
+
+    static SecondMeUserInfo userInfo() {
+        SecondMeUserInfo info = new SecondMeUserInfo();
+        info.setName("小明");
+        info.setBio("热爱阅读和旅行的 AI 分身");
+        info.setSelfIntroduction("我是一个喜欢思考城市、科技与生活之间关系的人，平时会写一些随笔。");
+        return info;
+    }
+
+    static List<SecondMeShade> shades(int count) {
+        List<SecondMeShade> shades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SecondMeShade shade = new SecondMeShade();
+            shade.setShadeNamePublic("兴趣" + i);
+            shade.setShadeDescriptionPublic("对这个领域有长期的关注和自己的见解，经常分享相关内容。");
+            shade.setConfidenceLevelPublic("HIGH");
+            shade.setHasPublicContent(true);
+            shades.add(shade);
+        }
+        return shades;
+    }
+
+    /**
+     * 模拟 chat/stream 的完整 SSE 响应体，每个 token 一个 data 行
+     */
+    static String sseBody(int tokens) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            body.append("data: {\"choices\":[{\"delta\":{\"content\":\"词")
+                    .append(i % 10)
+                    .append("\"}}]}\n\n");
+        }
+        body.append("data: [DONE]\n\n");
+        return body.toString();
+    }
+}
@@ -0,0 +1,134 @@
+package com.molkbook.service;
+
+import com.molkbook.datasource.ReadRouting;
+import com.molkbook.dto.CommentDTO;
+import com.molkbook.dto.CursorPageDTO;
+import com.molkbook.entity.Comment;
+import com.molkbook.entity.Post;
+import com.molkbook.event.FeedEventHub;
+import com.molkbook.repository.CommentRepository;
+import com.molkbook.repository.ContentVersionRepository;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserRepository;
+import com.molkbook.repository.UserShadeRepository;
+import com.molkbook.search.SearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 评论线程预览组装：顶级评论分页 + 每个线程按展示顺序的前几条回复和回复总数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentTreeBenchmark {
+
+    @Param({"10", "50"})
+    public int topLevel;
+
+    @Param({"2"})
+    public int fanout;
+
+    @Param({"4"})
+    public int depth;
+
+    private CommentService commentService;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        Post post = BenchmarkFixtures.posts(1, 1).get(0);
+        Map<Long, List<Comment>> tree = BenchmarkFixtures.commentTree(post, topLevel, fanout, depth);
+        List<Comment> roots = tree.get(null);
+        Page<Comment> rootPage = new PageImpl<>(roots, PageRequest.of(0, topLevel), roots.size());
+
+        Map<String, Function<Object[], Object>> commentHandlers = BenchmarkFixtures.handlers();
+        commentHandlers.put("findByPostIdAndParentIsNullOrderByCreatedAtAsc/2", args -> rootPage);
+        commentHandlers.put("findThreads/2", args -> roots.subList(0, Math.min(roots.size(), 11)));
+        commentHandlers.put("findThreadPreviews/2", args -> threadPreviews(tree, (List<Long>) args[0], (int) args[1]));
+        commentHandlers.put("countRepliesByRootIds/1", args -> replyCounts(tree, (List<Long>) args[0]));
+        CommentRepository commentRepository = BenchmarkFixtures.repository(CommentRepository.class, commentHandlers);
+
+        PostRepository postRepository = BenchmarkFixtures.repository(PostRepository.class, BenchmarkFixtures.handlers());
+        UserRepository userRepository = BenchmarkFixtures.repository(UserRepository.class, BenchmarkFixtures.handlers());
+        UserShadeRepository userShadeRepository =
+                BenchmarkFixtures.repository(UserShadeRepository.class, BenchmarkFixtures.handlers());
+
+        SecondMeApiService secondMeApiService = BenchmarkFixtures.secondMeApiService();
+        ContentVersionTracker contentVersionTracker = new ContentVersionTracker(
+                BenchmarkFixtures.repository(ContentVersionRepository.class, BenchmarkFixtures.handlers()), 1000, 10);
+        ReadRouting readRouting = new ReadRouting("", 10, 5);
+        UserService userService = new UserService(userRepository, userShadeRepository, postRepository,
+                commentRepository, secondMeApiService, new UserCache(userRepository, 60, 100), contentVersionTracker,
+                readRouting);
+        commentService = new CommentService(commentRepository, postRepository, userService,
+                new AIGenerationService(secondMeApiService), new SearchIndex(), contentVersionTracker,
+                new FeedEventHub(BenchmarkFixtures.objectMapper(), new SimpleMeterRegistry(), 30, 32, 100, 1), readRouting,
+                new TransactionTemplate());
+    }
+
+    @Benchmark
+    public Page<CommentDTO> commentPage() {
+        return commentService.getCommentsByPostId(1L, 0, topLevel);
+    }
+
+    @Benchmark
+    public CursorPageDTO<CommentDTO> threadPreview() {
+        return commentService.getThreadPreview(1L);
+    }
+
+    private static List<Comment> threadPreviews(Map<Long, List<Comment>> tree, List<Long> rootIds, int limit) {
+        List<Comment> replies = new ArrayList<>();
+        for (Long rootId : rootIds) {
+            List<Comment> descendants = new ArrayList<>();
+            collect(tree, rootId, descendants);
+            descendants.sort(Comparator.comparing(Comment::getPath));
+            replies.addAll(descendants.subList(0, Math.min(descendants.size(), limit)));
+        }
+        return replies;
+    }
+
+    private static List<Object[]> replyCounts(Map<Long, List<Comment>> tree, List<Long> rootIds) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long rootId : rootIds) {
+            List<Comment> descendants = new ArrayList<>();
+            collect(tree, rootId, descendants);
+            if (!descendants.isEmpty()) {
+                rows.add(new Object[]{rootId, (long) descendants.size()});
+            }
+        }
+        return rows;
+    }
+
+    private static void collect(Map<Long, List<Comment>> tree, Long parentId, List<Comment> out) {
+        for (Comment child : tree.getOrDefault(parentId, Collections.emptyList())) {
+            out.add(child);
+            collect(tree, child.getId(), out);
+        }
+    }
+}
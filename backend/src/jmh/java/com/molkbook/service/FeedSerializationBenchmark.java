@@ -0,0 +1,133 @@
+package com.molkbook.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.molkbook.dto.PostDTO;
+import com.molkbook.dto.UserDTO;
+import com.molkbook.entity.Post;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@code Page<PostDTO>} 的 Jackson 序列化和解析（GET /api/posts 响应体），对比 JSON / Smile / CBOR
+ * 响应体字节数见结果中的 payloadBytes 辅助计数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private Page<PostDTO> page;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = objectMapper(format);
+        page = feedPage(pageSize);
+        encoded = objectMapper.writeValueAsBytes(page);
+    }
+
+    /**
+     * 与 MessageConverterConfig 相同：二进制格式沿用 JSON 的 Jackson 设置，只替换 JsonFactory
+     */
+    private static ObjectMapper objectMapper(String format) {
+        switch (format) {
+            case "smile":
+                return BenchmarkFixtures.objectMapper(new SmileFactory());
+            case "cbor":
+                return BenchmarkFixtures.objectMapper(new CBORFactory());
+            default:
+                return BenchmarkFixtures.objectMapper();
+        }
+    }
+
+    static Page<PostDTO> feedPage(int pageSize) {
+        List<PostDTO> dtos = BenchmarkFixtures.posts(pageSize, 20).stream()
+                .map(FeedSerializationBenchmark::toDTO)
+                .collect(Collectors.toList());
+        return new PageImpl<>(dtos, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    private static PostDTO toDTO(Post post) {
+        return PostDTO.builder()
+                .id(post.getId())
+                .user(UserDTO.builder()
+                        .id(post.getUser().getId())
+                        .name(post.getUser().getName())
+                        .email(post.getUser().getEmail())
+                        .avatar(post.getUser().getAvatar())
+                        .bio(post.getUser().getBio())
+                        .selfIntroduction(post.getUser().getSelfIntroduction())
+                        .createdAt(post.getUser().getCreatedAt())
+                        .postCount(12L)
+                        .commentCount(34L)
+                        .build())
+                .content(post.getContent())
+                .topic(post.getTopic())
+                .aiGenerated(post.getAiGenerated())
+                .createdAt(post.getCreatedAt())
+                .likeCount(post.getLikeCount())
+                .commentCount(post.getCommentCount())
+                .liked(post.getId() % 3 == 0)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializePage(PayloadSize size) throws Exception {
+        byte[] bytes = objectMapper.writeValueAsBytes(page);
+        size.payloadBytes = bytes.length;
+        return bytes;
+    }
+
+    /**
+     * 客户端解析成本，解析为树而不是 Page（PageImpl 不能直接反序列化）
+     */
+    @Benchmark
+    public JsonNode parsePage() throws Exception {
+        return objectMapper.readTree(encoded);
+    }
+
+    /**
+     * 每次迭代结束时的值即响应体大小
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long payloadBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+        }
+    }
+}
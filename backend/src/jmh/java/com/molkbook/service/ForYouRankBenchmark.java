@@ -0,0 +1,100 @@
+package com.molkbook.service;
+
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.entity.UserShade;
+import com.molkbook.feed.ForYouRanker;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserShadeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 为你推荐排序：候选集已在内存中，每次请求查询一次用户兴趣标签（桩）后打分排序
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForYouRankBenchmark {
+
+    private static final String[] SHADE_NAMES = {
+            "城市漫步", "独立音乐", "咖啡烘焙", "科幻小说", "摄影", "徒步", "开源软件", "电影", "烹饪", "桌游",
+            "城市规划", "音乐制作", "手冲咖啡", "硬科幻", "胶片摄影", "长距离徒步"
+    };
+    private static final String[] CONFIDENCE_LEVELS = {"VERY_HIGH", "HIGH", "MEDIUM", "LOW", "VERY_LOW"};
+
+    @Param({"1000", "3000"})
+    public int candidates;
+
+    private ForYouRanker ranker;
+
+    @Setup
+    public void setup() {
+        int users = Math.max(1, candidates / 10);
+        List<Post> posts = BenchmarkFixtures.posts(candidates, users);
+        for (int i = 0; i < posts.size(); i++) {
+            posts.get(i).setTopic(SHADE_NAMES[i % SHADE_NAMES.length]);
+        }
+
+        List<UserShade> shades = new ArrayList<>();
+        for (long userId = 1; userId <= users + 1; userId++) {
+            User user = BenchmarkFixtures.user(userId);
+            for (int j = 0; j < 5; j++) {
+                shades.add(UserShade.builder()
+                        .user(user)
+                        .shadeName(SHADE_NAMES[(int) ((userId * 7 + j * 3) % SHADE_NAMES.length)])
+                        .confidenceLevel(CONFIDENCE_LEVELS[j % CONFIDENCE_LEVELS.length])
+                        .build());
+            }
+        }
+        Map<Long, List<UserShade>> shadesByUser = shades.stream()
+                .collect(Collectors.groupingBy(shade -> shade.getUser().getId()));
+
+        Map<String, Function<Object[], Object>> postHandlers = BenchmarkFixtures.handlers();
+        postHandlers.put("findRecentPosts/1", args -> posts);
+        postHandlers.put("findAllByHotness/1", args -> new PageImpl<>(posts.subList(0, Math.min(posts.size(), 500))));
+        PostRepository postRepository = BenchmarkFixtures.repository(PostRepository.class, postHandlers);
+
+        Map<String, Function<Object[], Object>> shadeHandlers = BenchmarkFixtures.handlers();
+        shadeHandlers.put("findByUserIdIn/1", args -> ((Collection<?>) args[0]).stream()
+                .flatMap(id -> shadesByUser.getOrDefault((Long) id, List.of()).stream())
+                .collect(Collectors.toList()));
+        shadeHandlers.put("findByUserId/1", args -> shadesByUser.getOrDefault((Long) args[0], List.of()));
+        UserShadeRepository userShadeRepository = BenchmarkFixtures.repository(UserShadeRepository.class, shadeHandlers);
+
+        ranker = new ForYouRanker(postRepository, userShadeRepository, new SimpleMeterRegistry(), candidates, 500, 24);
+        ranker.refresh();
+    }
+
+    @Benchmark
+    public ForYouRanker.RankedPage personalizedFirstPage() {
+        return ranker.rank((long) candidates / 10 + 1, 0, 20);
+    }
+
+    @Benchmark
+    public ForYouRanker.RankedPage anonymousFirstPage() {
+        return ranker.rank(null, 0, 20);
+    }
+}
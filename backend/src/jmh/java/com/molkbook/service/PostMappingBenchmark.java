@@ -0,0 +1,126 @@
+package com.molkbook.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.molkbook.datasource.ReadRouting;
+import com.molkbook.dto.PostDTO;
+import com.molkbook.entity.Post;
+import com.molkbook.event.FeedEventHub;
+import com.molkbook.feed.ForYouRanker;
+import com.molkbook.repository.CommentRepository;
+import com.molkbook.repository.ContentVersionRepository;
+import com.molkbook.repository.PostLikeRepository;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserRepository;
+import com.molkbook.repository.UserShadeRepository;
+import com.molkbook.search.SearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 帖子 DTO 映射：单条 toDTO 和整页 mapPostsToDTO（含点赞标记）
+ * 仓库为内存桩，测的是映射本身的 CPU 和分配开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostMappingBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private PostService postService;
+    private Post post;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setup() {
+        List<Post> posts = BenchmarkFixtures.posts(pageSize, 20);
+        Page<Post> page = new PageImpl<>(posts, PageRequest.of(0, pageSize), 10_000);
+        post = posts.get(0);
+
+        Map<String, Function<Object[], Object>> postHandlers = BenchmarkFixtures.handlers();
+        postHandlers.put("findAllByOrderByCreatedAtDesc/1", args -> page);
+        PostRepository postRepository = BenchmarkFixtures.repository(PostRepository.class, postHandlers);
+
+        List<Long> likedIds = posts.stream()
+                .map(Post::getId)
+                .filter(id -> id % 3 == 0)
+                .collect(Collectors.toList());
+        Map<String, Function<Object[], Object>> likeHandlers = BenchmarkFixtures.handlers();
+        likeHandlers.put("findPostIdsByUserId/1", args -> likedIds);
+        PostLikeRepository postLikeRepository = BenchmarkFixtures.repository(PostLikeRepository.class, likeHandlers);
+
+        CommentRepository commentRepository =
+                BenchmarkFixtures.repository(CommentRepository.class, BenchmarkFixtures.handlers());
+        UserRepository userRepository = BenchmarkFixtures.repository(UserRepository.class, BenchmarkFixtures.handlers());
+        UserShadeRepository userShadeRepository =
+                BenchmarkFixtures.repository(UserShadeRepository.class, BenchmarkFixtures.handlers());
+
+        SecondMeApiService secondMeApiService = BenchmarkFixtures.secondMeApiService();
+        objectMapper = BenchmarkFixtures.objectMapper();
+        ContentVersionTracker contentVersionTracker = new ContentVersionTracker(
+                BenchmarkFixtures.repository(ContentVersionRepository.class, BenchmarkFixtures.handlers()), 1000, 10);
+        ReadRouting readRouting = new ReadRouting("", 10, 5);
+        UserService userService = new UserService(userRepository, userShadeRepository, postRepository,
+                commentRepository, secondMeApiService, new UserCache(userRepository, 60, 100), contentVersionTracker,
+                readRouting);
+        postService = new PostService(postRepository, postLikeRepository, userService,
+                new AIGenerationService(secondMeApiService), new SearchIndex(), new TopicFeedCache(30, 100),
+                new ForYouRanker(postRepository, userShadeRepository, new SimpleMeterRegistry(), 2000, 1000, 24),
+                new LikedPostCache(postLikeRepository, 300, 100), contentVersionTracker,
+                new FeedEventHub(BenchmarkFixtures.objectMapper(), new SimpleMeterRegistry(), 30, 32, 100, 1), readRouting,
+                new PostJsonCache(objectMapper, 10_000), new TransactionTemplate());
+        // 预热片段缓存，下面测的是全部命中时的开销
+        postService.getPostsJson(0, pageSize, "newest", 42L);
+    }
+
+    @Benchmark
+    public PostDTO toDTO() {
+        return postService.toDTO(post, true);
+    }
+
+    @Benchmark
+    public Page<PostDTO> mapFeedPage() {
+        return postService.getPosts(0, pageSize, "newest", 42L);
+    }
+
+    /**
+     * 整页 DTO 构建并序列化，对照 serializeCachedFeedPage
+     */
+    @Benchmark
+    public byte[] serializeFeedPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(postService.getPosts(0, pageSize, "newest", 42L));
+    }
+
+    /**
+     * 片段缓存全部命中时的整页序列化
+     */
+    @Benchmark
+    public byte[] serializeCachedFeedPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(postService.getPostsJson(0, pageSize, "newest", 42L));
+    }
+}
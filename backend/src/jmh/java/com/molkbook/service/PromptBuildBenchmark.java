@@ -0,0 +1,59 @@
+package com.molkbook.service;
+
+import com.molkbook.dto.SecondMeShade;
+import com.molkbook.dto.SecondMeUserInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIGenerationService 系统提示词构建
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBuildBenchmark {
+
+    @Param({"5", "20"})
+    public int shadeCount;
+
+    private AIGenerationService aiGenerationService;
+    private SecondMeUserInfo userInfo;
+    private List<SecondMeShade> shades;
+
+    @Setup
+    public void setup() {
+        aiGenerationService = new AIGenerationService(BenchmarkFixtures.secondMeApiService());
+        userInfo = BenchmarkFixtures.userInfo();
+        shades = BenchmarkFixtures.shades(shadeCount);
+    }
+
+    @Benchmark
+    public String postPrompt() {
+        return aiGenerationService.buildPostGenerationSystemPrompt(userInfo, shades);
+    }
+
+    @Benchmark
+    public String commentPrompt() {
+        return aiGenerationService.buildCommentGenerationSystemPrompt(userInfo, shades);
+    }
+
+    @Benchmark
+    public String replyPrompt() {
+        return aiGenerationService.buildReplyGenerationSystemPrompt(userInfo, shades);
+    }
+}
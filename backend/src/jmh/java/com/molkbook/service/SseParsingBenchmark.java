@@ -0,0 +1,55 @@
+package com.molkbook.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * chat/stream SSE 解析
+ * fullBody 对应 chatSimple（整段响应一次解析），perLine 对应 chatStream（逐行解析）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SseParsingBenchmark {
+
+    @Param({"50", "500"})
+    public int tokens;
+
+    private SecondMeApiService secondMeApiService;
+    private String body;
+    private String[] lines;
+
+    @Setup
+    public void setup() {
+        secondMeApiService = BenchmarkFixtures.secondMeApiService();
+        body = BenchmarkFixtures.sseBody(tokens);
+        lines = body.split("\n");
+    }
+
+    @Benchmark
+    public String fullBody() {
+        return secondMeApiService.collectContent(body);
+    }
+
+    @Benchmark
+    public void perLine(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(secondMeApiService.parseChunk(line));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.molkbook.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按接口记录延迟样本和错误，结束时计算吞吐量和分位数
+ */
+final class LatencyRecorder {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void success(String endpoint, long nanos) {
+        endpoints.computeIfAbsent(endpoint, k -> new Endpoint()).record(nanos, null);
+    }
+
+    void failure(String endpoint, long nanos, String error) {
+        endpoints.computeIfAbsent(endpoint, k -> new Endpoint()).record(nanos, error);
+    }
+
+    /**
+     * 预热结束后清空样本
+     */
+    void reset() {
+        endpoints.clear();
+    }
+
+    List<Summary> summarize(double elapsedSeconds) {
+        List<Summary> summaries = new ArrayList<>();
+        new TreeMap<>(endpoints).forEach((name, endpoint) -> summaries.add(endpoint.summarize(name, elapsedSeconds)));
+        return summaries;
+    }
+
+    static final class Summary {
+        final String endpoint;
+        final long requests;
+        final long errors;
+        final double throughput;
+        final double p50Ms;
+        final double p95Ms;
+        final double p99Ms;
+        final double maxMs;
+        final Map<String, Long> errorBreakdown;
+
+        private Summary(String endpoint, long requests, long errors, double throughput,
+                        double p50Ms, double p95Ms, double p99Ms, double maxMs, Map<String, Long> errorBreakdown) {
+            this.endpoint = endpoint;
+            this.requests = requests;
+            this.errors = errors;
+            this.throughput = throughput;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+            this.errorBreakdown = errorBreakdown;
+        }
+    }
+
+    private static final class Endpoint {
+        private long[] samples = new long[1024];
+        private int count;
+        private long errors;
+        private final Map<String, Long> errorBreakdown = new TreeMap<>();
+
+        synchronized void record(long nanos, String error) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+            if (error != null) {
+                errors++;
+                errorBreakdown.merge(error, 1L, Long::sum);
+            }
+        }
+
+        synchronized Summary summarize(String name, double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return new Summary(name, count, errors, count / elapsedSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    count == 0 ? 0 : sorted[count - 1] / 1_000_000.0,
+                    new TreeMap<>(errorBreakdown));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
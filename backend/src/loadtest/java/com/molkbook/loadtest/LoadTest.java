@@ -0,0 +1,425 @@
+package com.molkbook.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端压测：对运行中的后端（建议 local,stub profile）发起混合流量，
+ * 输出每个接口的吞吐量、p50/p95/p99 延迟、错误分布，以及连接池和线程池利用率
+ *
+ * 用法：mvn -Ploadtest compile exec:exec -Dloadtest.args="--duration=60 --readers=32"
+ */
+public class LoadTest {
+
+    private static final String[] SORTS = {"newest", "likes", "comments", "hot"};
+
+    private final Options options;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final List<String> tokens = new CopyOnWriteArrayList<>();
+    private final List<Long> postIds = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    LoadTest(Options options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        new LoadTest(options).run();
+    }
+
+    void run() throws Exception {
+        System.out.printf("Target %s: %d users, readers=%d, likers=%d, streams=%d, warmup=%ds, duration=%ds%n",
+                options.baseUrl, options.users, options.readers, options.likers, options.streams,
+                options.warmupSeconds, options.durationSeconds);
+
+        seed();
+
+        PrometheusSampler sampler = new PrometheusSampler(client, options.managementUrl);
+        sampler.start(Duration.ofSeconds(1));
+
+        int workers = options.readers + options.likers + options.streams;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, workers));
+        for (int i = 0; i < options.readers; i++) {
+            pool.submit(() -> loop(this::read));
+        }
+        for (int i = 0; i < options.likers; i++) {
+            pool.submit(() -> loop(this::likeAndUnlike));
+        }
+        for (int i = 0; i < options.streams; i++) {
+            pool.submit(() -> loop(this::generateStream));
+        }
+
+        TimeUnit.SECONDS.sleep(options.warmupSeconds);
+        recorder.reset();
+        sampler.reset();
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(options.durationSeconds);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        List<LatencyRecorder.Summary> summaries = recorder.summarize(elapsed);
+        Map<String, PrometheusSampler.Gauge> gauges = sampler.snapshot();
+
+        running = false;
+        sampler.stop();
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        printReport(summaries, gauges, elapsed, sampler.lastError());
+        writeReport(summaries, gauges, elapsed);
+        System.exit(0);
+    }
+
+    // ==================== 准备数据 ====================
+
+    /**
+     * 登录模拟用户、等待资料同步完成并创建帖子
+     */
+    private void seed() throws Exception {
+        for (int i = 0; i < options.users; i++) {
+            JsonNode login = getJson("/api/auth/oauth/callback?code=loadtest-" + i, null);
+            if (login == null || !login.path("success").asBoolean()) {
+                throw new IllegalStateException("Login failed for loadtest-" + i + ": " + login);
+            }
+            tokens.add(login.get("token").asText());
+        }
+        for (String token : tokens) {
+            awaitProfileSync(token);
+        }
+
+        int created = 0;
+        for (String token : tokens) {
+            for (int i = 0; i < options.postsPerUser; i++) {
+                String body = objectMapper.writeValueAsString(Map.of("content", "压测帖子 #" + (created++)));
+                JsonNode response = postJson("/api/posts/create", token, body);
+                if (response != null && response.has("post")) {
+                    postIds.add(response.get("post").get("id").asLong());
+                }
+            }
+        }
+        // 已有数据也纳入随机访问范围
+        JsonNode page = getJson("/api/posts?size=100", tokens.get(0));
+        if (page != null) {
+            for (JsonNode post : page.path("content")) {
+                long id = post.get("id").asLong();
+                if (!postIds.contains(id)) {
+                    postIds.add(id);
+                }
+            }
+        }
+        if (postIds.isEmpty()) {
+            throw new IllegalStateException("No posts available after seeding");
+        }
+        System.out.printf("Seeded %d users and %d posts%n", tokens.size(), postIds.size());
+    }
+
+    private void awaitProfileSync(String token) throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            JsonNode status = getJson("/api/auth/profile-sync", token);
+            String value = status == null ? null : status.path("status").asText(null);
+            if ("COMPLETED".equals(value) || "FAILED".equals(value) || value == null) {
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+    }
+
+    // ==================== 流量 ====================
+
+    private void loop(Runnable action) {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            action.run();
+            if (options.thinkMillis > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(options.thinkMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 读流量：40% 帖子列表（四种排序轮流），30% 帖子详情，30% 评论分页
+     */
+    private void read() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(10);
+        if (roll < 4) {
+            String sort = SORTS[random.nextInt(SORTS.length)];
+            send("GET /api/posts?sortBy=" + sort,
+                    get("/api/posts?sortBy=" + sort + "&page=" + random.nextInt(3) + "&size=20", randomToken()));
+        } else if (roll < 7) {
+            send("GET /api/posts/{id}", get("/api/posts/" + randomPostId(), randomToken()));
+        } else {
+            send("GET /api/posts/{id}/comments", get("/api/posts/" + randomPostId() + "/comments", randomToken()));
+        }
+    }
+
+    private void likeAndUnlike() {
+        String token = randomToken();
+        long postId = randomPostId();
+        send("POST /api/posts/{id}/like", request("/api/posts/" + postId + "/like", token)
+                .POST(HttpRequest.BodyPublishers.noBody()).build());
+        send("DELETE /api/posts/{id}/like", request("/api/posts/" + postId + "/like", token)
+                .DELETE().build());
+    }
+
+    /**
+     * 流式生成：分别记录首个 data 事件的到达时间和完整响应时间
+     */
+    private void generateStream() {
+        String endpoint = "POST /api/posts/generate/stream";
+        HttpRequest httpRequest = request("/api/posts/generate/stream", randomToken())
+                .timeout(Duration.ofSeconds(options.streamTimeoutSeconds))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() >= 400) {
+                response.body().close();
+                recorder.failure(endpoint, System.nanoTime() - start, "HTTP " + response.statusCode());
+                return;
+            }
+            boolean firstToken = false;
+            boolean error = false;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("event:") && line.contains("error")) {
+                        error = true;
+                    } else if (!firstToken && line.startsWith("data:") && line.length() > 5) {
+                        firstToken = true;
+                        recorder.success(endpoint + " (first token)", System.nanoTime() - start);
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (error || !firstToken) {
+                recorder.failure(endpoint, elapsed, error ? "stream error event" : "empty stream");
+            } else {
+                recorder.success(endpoint, elapsed);
+            }
+        } catch (Exception e) {
+            if (running) {
+                recorder.failure(endpoint, System.nanoTime() - start, e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private void send(String endpoint, HttpRequest httpRequest) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+            long elapsed = System.nanoTime() - start;
+            if (response.statusCode() >= 400) {
+                recorder.failure(endpoint, elapsed, "HTTP " + response.statusCode());
+            } else {
+                recorder.success(endpoint, elapsed);
+            }
+        } catch (Exception e) {
+            if (running) {
+                recorder.failure(endpoint, System.nanoTime() - start, e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    // ==================== HTTP 工具 ====================
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(options.baseUrl + path))
+                .timeout(Duration.ofSeconds(options.requestTimeoutSeconds));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private JsonNode getJson(String path, String token) throws Exception {
+        HttpResponse<String> response = client.send(get(path, token), HttpResponse.BodyHandlers.ofString());
+        return response.body().isEmpty() ? null : objectMapper.readTree(response.body());
+    }
+
+    private JsonNode postJson(String path, String token, String body) throws Exception {
+        HttpRequest httpRequest = request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        return response.body().isEmpty() ? null : objectMapper.readTree(response.body());
+    }
+
+    private String randomToken() {
+        return tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+    }
+
+    private long randomPostId() {
+        return postIds.get(ThreadLocalRandom.current().nextInt(postIds.size()));
+    }
+
+    // ==================== 报告 ====================
+
+    private void printReport(List<LatencyRecorder.Summary> summaries, Map<String, PrometheusSampler.Gauge> gauges,
+                             double elapsed, String samplerError) {
+        System.out.printf("%nMeasured %.1fs%n", elapsed);
+        System.out.printf("%-46s %9s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (LatencyRecorder.Summary s : summaries) {
+            System.out.printf("%-46s %9d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    s.endpoint, s.requests, s.errors, s.throughput, s.p50Ms, s.p95Ms, s.p99Ms, s.maxMs);
+            if (!s.errorBreakdown.isEmpty()) {
+                System.out.printf("    errors: %s%n", s.errorBreakdown);
+            }
+            if (!s.endpoint.endsWith("(first token)")) {
+                totalRequests += s.requests;
+                totalErrors += s.errors;
+            }
+        }
+        System.out.printf("%-46s %9d %8d %9.1f%n", "total", totalRequests, totalErrors, totalRequests / elapsed);
+
+        System.out.printf("%n%-70s %9s %9s %9s%n", "pool / queue", "avg", "max", "last");
+        if (gauges.isEmpty()) {
+            System.out.println("(no samples from /actuator/prometheus" + (samplerError != null ? ": " + samplerError : "") + ")");
+        }
+        gauges.forEach((series, gauge) -> System.out.printf("%-70s %9.1f %9.1f %9.1f%n",
+                series, gauge.avg(), gauge.max(), gauge.last()));
+        System.out.printf("%nReport written to %s%n", options.reportFile);
+    }
+
+    private void writeReport(List<LatencyRecorder.Summary> summaries, Map<String, PrometheusSampler.Gauge> gauges,
+                             double elapsed) throws Exception {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("baseUrl", options.baseUrl);
+        root.put("elapsedSeconds", elapsed);
+        root.set("options", objectMapper.valueToTree(options.asMap()));
+
+        ArrayNode endpoints = root.putArray("endpoints");
+        for (LatencyRecorder.Summary s : summaries) {
+            ObjectNode node = endpoints.addObject();
+            node.put("endpoint", s.endpoint);
+            node.put("requests", s.requests);
+            node.put("errors", s.errors);
+            node.put("throughput", s.throughput);
+            node.put("p50Ms", s.p50Ms);
+            node.put("p95Ms", s.p95Ms);
+            node.put("p99Ms", s.p99Ms);
+            node.put("maxMs", s.maxMs);
+            node.set("errorBreakdown", objectMapper.valueToTree(s.errorBreakdown));
+        }
+
+        ObjectNode pools = root.putObject("pools");
+        gauges.forEach((series, gauge) -> {
+            ObjectNode node = pools.putObject(series);
+            node.put("avg", gauge.avg());
+            node.put("max", gauge.max());
+            node.put("last", gauge.last());
+        });
+
+        Path path = Path.of(options.reportFile);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), root);
+    }
+
+    /**
+     * 命令行参数，格式为 --name=value
+     */
+    static final class Options {
+        String baseUrl = "http://localhost:8080";
+        // Actuator 在单独的管理端口上
+        String managementUrl = "http://localhost:8081";
+        int users = 20;
+        int postsPerUser = 5;
+        int readers = 32;
+        int likers = 4;
+        int streams = 8;
+        int warmupSeconds = 10;
+        int durationSeconds = 60;
+        int thinkMillis = 0;
+        int requestTimeoutSeconds = 30;
+        int streamTimeoutSeconds = 120;
+        String reportFile = "target/loadtest-report.json";
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+                }
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "base-url": options.baseUrl = value; break;
+                    case "management-url": options.managementUrl = value; break;
+                    case "users": options.users = Integer.parseInt(value); break;
+                    case "posts-per-user": options.postsPerUser = Integer.parseInt(value); break;
+                    case "readers": options.readers = Integer.parseInt(value); break;
+                    case "likers": options.likers = Integer.parseInt(value); break;
+                    case "streams": options.streams = Integer.parseInt(value); break;
+                    case "warmup": options.warmupSeconds = Integer.parseInt(value); break;
+                    case "duration": options.durationSeconds = Integer.parseInt(value); break;
+                    case "think-ms": options.thinkMillis = Integer.parseInt(value); break;
+                    case "request-timeout": options.requestTimeoutSeconds = Integer.parseInt(value); break;
+                    case "stream-timeout": options.streamTimeoutSeconds = Integer.parseInt(value); break;
+                    case "report": options.reportFile = value; break;
+                    default: throw new IllegalArgumentException("Unknown option: --" + name);
+                }
+            }
+            if (options.users < 1) {
+                throw new IllegalArgumentException("--users must be at least 1");
+            }
+            return options;
+        }
+
+        Map<String, Object> asMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("users", users);
+            map.put("postsPerUser", postsPerUser);
+            map.put("readers", readers);
+            map.put("likers", likers);
+            map.put("streams", streams);
+            map.put("warmupSeconds", warmupSeconds);
+            map.put("durationSeconds", durationSeconds);
+            map.put("thinkMillis", thinkMillis);
+            return map;
+        }
+    }
+}
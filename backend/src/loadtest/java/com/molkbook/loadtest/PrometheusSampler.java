@@ -0,0 +1,138 @@
+package com.molkbook.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测期间定时抓取 /actuator/prometheus，记录连接池、Tomcat 线程和生成队列的利用率
+ */
+final class PrometheusSampler {
+
+    /**
+     * 关注的指标前缀
+     */
+    private static final List<String> GAUGES = List.of(
+            "hikaricp_connections_active",
+            "hikaricp_connections_pending",
+            "hikaricp_connections_max",
+            "tomcat_threads_busy_threads",
+            "tomcat_threads_config_max_threads",
+            "molkbook_generation_queue_depth",
+            "molkbook_generation_active",
+            "jvm_threads_live_threads"
+    );
+
+    private final HttpClient client;
+    private final URI uri;
+    private final Map<String, Gauge> gauges = new TreeMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "prometheus-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile String lastError;
+
+    /**
+     * @param managementUrl Actuator 管理端口的地址，不是 API 地址
+     */
+    PrometheusSampler(HttpClient client, String managementUrl) {
+        this.client = client;
+        this.uri = URI.create(managementUrl + "/actuator/prometheus");
+    }
+
+    void start(Duration interval) {
+        scheduler.scheduleAtFixedRate(this::sample, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    synchronized void reset() {
+        gauges.clear();
+    }
+
+    synchronized Map<String, Gauge> snapshot() {
+        return new TreeMap<>(gauges);
+    }
+
+    String lastError() {
+        return lastError;
+    }
+
+    private void sample() {
+        try {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                lastError = "HTTP " + response.statusCode();
+                return;
+            }
+            parse(response.body());
+        } catch (Exception e) {
+            lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    private synchronized void parse(String body) {
+        for (String line : body.split("\n")) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int space = line.lastIndexOf(' ');
+            if (space < 0) {
+                continue;
+            }
+            String series = line.substring(0, space);
+            if (GAUGES.stream().noneMatch(series::startsWith)) {
+                continue;
+            }
+            try {
+                double value = Double.parseDouble(line.substring(space + 1));
+                gauges.computeIfAbsent(stripApplicationTag(series), k -> new Gauge()).add(value);
+            } catch (NumberFormatException ignored) {
+                // 非数值样本直接跳过
+            }
+        }
+    }
+
+    private static String stripApplicationTag(String series) {
+        return series.replaceAll("application=\"[^\"]*\",?", "").replace(",}", "}").replace("{}", "");
+    }
+
+    static final class Gauge {
+        private long samples;
+        private double sum;
+        private double max;
+        private double last;
+
+        private void add(double value) {
+            samples++;
+            sum += value;
+            max = Math.max(max, value);
+            last = value;
+        }
+
+        double avg() {
+            return samples == 0 ? 0 : sum / samples;
+        }
+
+        double max() {
+            return max;
+        }
+
+        double last() {
+            return last;
+        }
+    }
+}
@@ -22,11 +22,8 @@ public class AuthHelper {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return null;
         }
-        String token = authHeader.substring(7);
-        if (!jwtUtil.isTokenValid(token)) {
-            return null;
-        }
-        return jwtUtil.extractUserId(token);
+        // 一次解析同时完成校验和提取，已验证过的 Token 直接命中缓存
+        return jwtUtil.validateAndExtractUserId(authHeader.substring(7));
     }
 
     /**
@@ -0,0 +1,40 @@
+package com.molkbook.config;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 资源隔离舱：后台定时任务与用户请求分别使用各自的 SecondMe 连接池、线程池和主库连接池，
+ * 后台任务集中触发时最多用满自己的份额，不会占用用户请求的资源
+ * 线程所属的隔离舱在创建时确定：由 {@link #threadFactory} 创建的线程属于对应隔离舱，其余线程都属于 INTERACTIVE
+ */
+public enum Bulkhead {
+
+    INTERACTIVE,
+    BACKGROUND;
+
+    private static final ThreadLocal<Bulkhead> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    public static Bulkhead current() {
+        return CURRENT.get();
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * 创建属于本隔离舱的守护线程
+     */
+    public ThreadFactory threadFactory(String namePrefix) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                CURRENT.set(this);
+                runnable.run();
+            }, namePrefix + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
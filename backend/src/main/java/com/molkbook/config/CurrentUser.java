@@ -0,0 +1,17 @@
+package com.molkbook.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 注入当前登录用户（{@link com.molkbook.entity.User}）
+ * 由 CurrentUserArgumentResolver 每个请求只解析一次，未登录或 Token 无效时为 null
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
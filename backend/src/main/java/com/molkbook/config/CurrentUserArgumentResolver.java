@@ -0,0 +1,51 @@
+package com.molkbook.config;
+
+import com.molkbook.entity.User;
+import com.molkbook.service.UserCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Optional;
+
+/**
+ * 解析 {@link CurrentUser} 参数
+ * Token 校验走 JwtUtil 的缓存，用户实体走 UserCache，结果保存在请求属性中，
+ * 同一请求内多次解析不会重复查询
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String CURRENT_USER_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".user";
+
+    private final AuthHelper authHelper;
+    private final UserCache userCache;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && User.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object resolved = webRequest.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved instanceof Optional) {
+            return ((Optional<User>) resolved).orElse(null);
+        }
+
+        Long userId = authHelper.extractUserId(webRequest.getHeader(HttpHeaders.AUTHORIZATION));
+        Optional<User> user = userId != null ? userCache.findById(userId) : Optional.empty();
+        webRequest.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        return user.orElse(null);
+    }
+}
@@ -1,11 +1,14 @@
 package com.molkbook.config;
 
+import com.molkbook.entity.Comment;
 import com.molkbook.entity.Post;
 import com.molkbook.repository.CommentRepository;
 import com.molkbook.repository.PostRepository;
+import com.molkbook.service.CommentPath;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +29,7 @@ public class DataInitializer implements CommandLineRunner {
     @Transactional
     public void run(String... args) {
         syncCommentCounts();
+        backfillCommentPaths();
     }
 
     /**
@@ -54,4 +58,26 @@ public class DataInitializer implements CommandLineRunner {
             log.info("All post comment counts are in sync");
         }
     }
+
+    /**
+     * 为没有物化路径的旧评论补齐 rootId、depth 和 path
+     * 每批查询前自动 flush，上一批填好路径的评论不会重复出现，其回复在下一轮被选中
+     * 补齐期间已经在接收请求：这时回复旧评论，由 CommentPath.assign 为父评论计算路径，结果与补齐相同
+     */
+    private void backfillCommentPaths() {
+        int updated = 0;
+        List<Comment> batch;
+        while (!(batch = commentRepository.findRootsWithoutPath(PageRequest.of(0, 500))).isEmpty()) {
+            batch.forEach(CommentPath::assign);
+            updated += batch.size();
+        }
+        while (!(batch = commentRepository.findRepliesWithoutPath(PageRequest.of(0, 500))).isEmpty()) {
+            batch.forEach(CommentPath::assign);
+            updated += batch.size();
+        }
+
+        if (updated > 0) {
+            log.info("Backfilled comment paths for {} comments", updated);
+        }
+    }
 }
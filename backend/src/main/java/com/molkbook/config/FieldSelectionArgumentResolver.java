@@ -0,0 +1,30 @@
+package com.molkbook.config;
+
+import com.molkbook.dto.FieldSelection;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * 从 fields 请求参数解析 {@link FieldSelection}，未传时为全部字段
+ * 格式不正确时抛出 IllegalArgumentException，由 GlobalExceptionHandler 返回 400
+ */
+@Component
+public class FieldSelectionArgumentResolver implements HandlerMethodArgumentResolver {
+
+    static final String PARAMETER = "fields";
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return FieldSelection.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return FieldSelection.parse(webRequest.getParameter(PARAMETER));
+    }
+}
@@ -1,6 +1,10 @@
 package com.molkbook.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,19 +15,55 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final Long expiration;
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    // 签名密钥和解析器只构建一次，JwtParser 是不可变且线程安全的
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * 已验证 Token 缓存：token -> (userId, 过期时间)，条目在 Token 过期时失效
+     * 同一个 Bearer Token 的重复请求跳过 HMAC 校验和 JSON 解析
+     */
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final int cacheMaxSize;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") Long expiration,
+                   @Value("${jwt.cache.max-size:10000}") int cacheMaxSize) {
+        this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.cacheMaxSize = cacheMaxSize;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, cacheMaxSize))
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, verified.expiresAt - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(token, verified, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
     }
 
     public String generateToken(Long userId) {
@@ -37,29 +77,72 @@ public class JwtUtil {
                 .claims(claims)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public Long extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("userId", Long.class);
+        Long userId = validateAndExtractUserId(token);
+        if (userId != null) {
+            return userId;
+        }
+        // 无效 Token 保持原有行为：解析时抛出异常
+        return extractAllClaims(token).get("userId", Long.class);
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public boolean isTokenValid(String token) {
+        return validateAndExtractUserId(token) != null;
+    }
+
+    /**
+     * 校验 Token 并提取用户 ID，一次解析完成
+     * @return 用户 ID，如果 token 无效或已过期则返回 null
+     */
+    public Long validateAndExtractUserId(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            return cached.userId;
+        }
+
+        Claims claims;
         try {
-            Claims claims = extractAllClaims(token);
-            return !claims.getExpiration().before(new Date());
+            claims = extractAllClaims(token);
         } catch (Exception e) {
-            return false;
+            // 无效 Token 不进入缓存，避免被随机字符串撑满
+            return null;
+        }
+
+        Date expiresAt = claims.getExpiration();
+        Long userId = claims.get("userId", Long.class);
+        if (expiresAt == null || userId == null || !expiresAt.after(new Date())) {
+            return null;
+        }
+
+        if (cacheMaxSize > 0) {
+            verifiedTokens.put(token, new VerifiedToken(userId, expiresAt.getTime()));
+        }
+        return userId;
+    }
+
+    public Cache<String, ?> getCache() {
+        return verifiedTokens;
+    }
+
+    private static final class VerifiedToken {
+        private final Long userId;
+        private final long expiresAt;
+
+        private VerifiedToken(Long userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
         }
     }
 }
@@ -6,6 +6,6 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @Configuration
 @EnableScheduling
 public class SchedulerConfig {
-    // Spring Boot 自动配置定时任务
-    // 定时任务实现在 AIContentScheduler 中
+    // Spring Boot 自动配置定时任务，线程数见 spring.task.scheduling.pool.size
+    // 定时任务实现在 AIContentScheduler 中，生成任务交给它自己的后台隔离舱线程执行
 }
@@ -2,6 +2,7 @@ package com.molkbook.controller;
 
 import com.molkbook.config.JwtUtil;
 import com.molkbook.entity.User;
+import com.molkbook.service.ProfileSyncService;
 import com.molkbook.service.SecondMeApiService;
 import com.molkbook.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ public class AuthController {
 
     private final UserService userService;
     private final SecondMeApiService secondMeApiService;
+    private final ProfileSyncService profileSyncService;
     private final JwtUtil jwtUtil;
 
     @Value("${secondme.api.oauth.client-id}")
@@ -84,10 +86,11 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            // 创建或更新用户（返回是否为新用户）
-            UserService.CreateUserResult result = userService.createOrUpdateUserWithFlag(accessToken);
+            // 只做最小化的用户创建，资料和兴趣标签在后台同步
+            UserService.CreateUserResult result = userService.upsertUserByToken(accessToken);
             User user = result.user;
             boolean isNewUser = result.isNewUser;
+            ProfileSyncService.SyncStatus syncStatus = profileSyncService.submit(user.getId(), accessToken);
 
             // 生成 JWT
             String jwt = jwtUtil.generateToken(user.getId());
@@ -97,6 +100,7 @@ public class AuthController {
             response.put("token", jwt);
             response.put("user", userService.toDTO(user));
             response.put("isNewUser", isNewUser);
+            response.put("profileSync", syncStatus);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("OAuth callback error", e);
@@ -120,14 +124,13 @@ public class AuthController {
             return ResponseEntity.ok(response);
         }
 
-        String token = authHeader.substring(7);
-        boolean valid = jwtUtil.isTokenValid(token);
+        Long userId = jwtUtil.validateAndExtractUserId(authHeader.substring(7));
+        boolean valid = userId != null;
 
         Map<String, Object> response = new HashMap<>();
         response.put("valid", valid);
 
         if (valid) {
-            Long userId = jwtUtil.extractUserId(token);
             userService.findById(userId).ifPresent(user -> {
                 response.put("user", userService.toDTO(user));
             });
@@ -135,4 +138,33 @@ public class AuthController {
 
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * 查询登录后资料同步状态，同步完成时返回最新的用户信息
+     */
+    @GetMapping("/profile-sync")
+    public ResponseEntity<Map<String, Object>> getProfileSyncStatus(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+
+        Long userId = jwtUtil.validateAndExtractUserId(authHeader.substring(7));
+        if (userId == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+
+        ProfileSyncService.SyncStatus status = profileSyncService.getStatus(userId);
+
+        Map<String, Object> response = new HashMap<>();
+        // 没有记录说明服务重启过或从未登录过，资料以数据库为准
+        response.put("status", status != null ? status : ProfileSyncService.SyncStatus.COMPLETED);
+        // DEFERRED：队列已满本次未同步，返回数据库中的资料
+        if (status == null || status == ProfileSyncService.SyncStatus.COMPLETED
+                || status == ProfileSyncService.SyncStatus.DEFERRED) {
+            userService.findById(userId).ifPresent(user -> response.put("user", userService.toDTO(user)));
+        }
+        return ResponseEntity.ok(response);
+    }
 }
@@ -0,0 +1,42 @@
+package com.molkbook.controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 批量查询接口的 ids 参数：逗号分隔，去重后保持原顺序
+ */
+final class BatchIds {
+
+    static final int MAX_SIZE = 100;
+
+    private BatchIds() {
+    }
+
+    /**
+     * @throws IllegalArgumentException 为空、包含非数字或超过 MAX_SIZE 个
+     */
+    static List<Long> parse(String ids) {
+        Set<Long> parsed = new LinkedHashSet<>();
+        for (String part : ids.split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed.add(Long.parseLong(trimmed));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid ids");
+            }
+            if (parsed.size() > MAX_SIZE) {
+                throw new IllegalArgumentException("Too many ids (max " + MAX_SIZE + ")");
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("Invalid ids");
+        }
+        return new ArrayList<>(parsed);
+    }
+}
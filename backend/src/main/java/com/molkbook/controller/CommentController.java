@@ -1,13 +1,18 @@
 package com.molkbook.controller;
 
 import com.molkbook.config.AuthHelper;
+import com.molkbook.config.CurrentUser;
 import com.molkbook.dto.CommentDTO;
+import com.molkbook.dto.FieldSelection;
 import com.molkbook.entity.Comment;
 import com.molkbook.entity.Post;
 import com.molkbook.entity.User;
 import com.molkbook.repository.PostRepository;
 import com.molkbook.service.AIGenerationService;
+import com.molkbook.service.CommentPath;
 import com.molkbook.service.CommentService;
+import com.molkbook.service.GenerationExecutor;
+import com.molkbook.service.IdempotencyService;
 import com.molkbook.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +20,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import reactor.core.publisher.Flux;
 
 import java.util.HashMap;
@@ -35,63 +41,105 @@ public class CommentController {
     private final PostRepository postRepository;
     private final AuthHelper authHelper;
     private final AIGenerationService aiGenerationService;
+    private final IdempotencyService idempotencyService;
+    private final GenerationExecutor generationExecutor;
 
     /**
      * 获取帖子的评论
+     * @param fields 只返回指定字段（见 FieldSelection），回复与顶级评论使用相同的字段
      */
     @GetMapping
     public ResponseEntity<Page<CommentDTO>> getComments(
             @PathVariable Long postId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
+            @RequestParam(defaultValue = "50") int size,
+            FieldSelection fields) {
         int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
         int safePage = Math.max(0, page);
-        return ResponseEntity.ok(commentService.getCommentsByPostId(postId, safePage, safeSize));
+        return ResponseEntity.ok(commentService.getCommentsByPostId(postId, safePage, safeSize, fields));
     }
 
     /**
-     * AI 生成评论
+     * 继续获取评论线程（帖子详情返回的 commentsCursor），每个线程带回复预览
      */
-    @PostMapping("/generate")
-    public ResponseEntity<Map<String, Object>> generateComment(
+    @GetMapping(params = "cursor")
+    public ResponseEntity<?> getThreads(
             @PathVariable Long postId,
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            FieldSelection fields) {
+        int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        try {
+            return ResponseEntity.ok(commentService.getThreads(postId, cursor, safeSize, fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+    }
 
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
-            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+    /**
+     * 展开评论下的全部回复（子树，按展示顺序分页），客户端按 parentId 组装嵌套结构
+     * @param cursor 线程预览中的 repliesCursor 或上一页的 nextCursor，从头获取时不传
+     */
+    @GetMapping("/{commentId}/replies")
+    public ResponseEntity<?> getReplies(
+            @PathVariable Long postId,
+            @PathVariable Long commentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            FieldSelection fields) {
+        Optional<Comment> comment = commentService.findById(commentId);
+        if (comment.isEmpty() || !comment.get().getPost().getId().equals(postId)) {
+            return ResponseEntity.status(404).body(Map.of("error", "Comment not found"));
         }
+        int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        try {
+            return ResponseEntity.ok(commentService.getReplies(comment.get(), cursor, safeSize, fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+    }
+
+    /**
+     * AI 生成评论
+     * 与本类其他非流式生成接口一样在 GenerationExecutor 中异步执行
+     */
+    @PostMapping("/generate")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> generateComment(
+            @PathVariable Long postId,
+            @CurrentUser User user,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
-        Optional<User> userOpt = userService.findById(userId);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+        if (user == null) {
+            return GenerationExecutor.immediate(ResponseEntity.status(401).body(Map.of("error", "Unauthorized")));
         }
 
-        Optional<Post> postOpt = postRepository.findById(postId);
+        Optional<Post> postOpt = postRepository.findWithUserById(postId);
         if (postOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "Post not found"));
+            return GenerationExecutor.immediate(ResponseEntity.status(404).body(Map.of("error", "Post not found")));
         }
 
-        try {
-            Comment comment = commentService.generateComment(postOpt.get(), userOpt.get());
-            if (comment != null) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", true);
-                response.put("comment", commentService.toDTO(comment));
-                return ResponseEntity.ok(response);
-            } else {
+        return generationExecutor.respond(idempotencyService.execute(user.getId(), "generate-comment:" + postId, idempotencyKey, () -> generationExecutor.submit(() -> {
+            try {
+                Comment comment = commentService.generateComment(postOpt.get(), user);
+                if (comment != null) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("comment", commentService.toDTO(comment));
+                    return ResponseEntity.ok(response);
+                } else {
+                    return ResponseEntity.status(500).body(Map.of(
+                            "success", false,
+                            "error", "Failed to generate comment content"
+                    ));
+                }
+            } catch (Exception e) {
+                log.error("Error generating comment", e);
                 return ResponseEntity.status(500).body(Map.of(
                         "success", false,
-                        "error", "Failed to generate comment content"
+                        "error", "Failed to generate comment"
                 ));
             }
-        } catch (Exception e) {
-            log.error("Error generating comment", e);
-            return ResponseEntity.status(500).body(Map.of(
-                    "success", false,
-                    "error", "Failed to generate comment"
-            ));
-        }
+        })));
     }
 
     /**
@@ -99,19 +147,20 @@ public class CommentController {
      * 需要登录认证
      */
     @PostMapping("/generate-random")
-    public ResponseEntity<Map<String, Object>> generateRandomComment(
+    public DeferredResult<ResponseEntity<Map<String, Object>>> generateRandomComment(
             @PathVariable Long postId,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         // 验证用户登录状态
         Long userId = authHelper.extractUserId(authHeader);
         if (userId == null) {
-            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized - please login first"));
+            return GenerationExecutor.immediate(ResponseEntity.status(401).body(Map.of("error", "Unauthorized - please login first")));
         }
 
-        Optional<Post> postOpt = postRepository.findById(postId);
+        Optional<Post> postOpt = postRepository.findWithUserById(postId);
         if (postOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "Post not found"));
+            return GenerationExecutor.immediate(ResponseEntity.status(404).body(Map.of("error", "Post not found")));
         }
 
         Post post = postOpt.get();
@@ -119,34 +168,36 @@ public class CommentController {
         // 获取随机的其他用户（限制返回数量为1）
         List<User> randomUsers = userService.findRandomUsersExcluding(post.getUser().getId(), 1);
         if (randomUsers.isEmpty()) {
-            return ResponseEntity.status(400).body(Map.of(
+            return GenerationExecutor.immediate(ResponseEntity.status(400).body(Map.of(
                     "success", false,
                     "error", "No other users available to comment"
-            ));
+            )));
         }
 
         User commenter = randomUsers.get(0);
 
-        try {
-            Comment comment = commentService.generateComment(post, commenter);
-            if (comment != null) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", true);
-                response.put("comment", commentService.toDTO(comment));
-                return ResponseEntity.ok(response);
-            } else {
+        return generationExecutor.respond(idempotencyService.execute(userId, "generate-random-comment:" + postId, idempotencyKey, () -> generationExecutor.submit(() -> {
+            try {
+                Comment comment = commentService.generateComment(post, commenter);
+                if (comment != null) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("comment", commentService.toDTO(comment));
+                    return ResponseEntity.ok(response);
+                } else {
+                    return ResponseEntity.status(500).body(Map.of(
+                            "success", false,
+                            "error", "Failed to generate comment content"
+                    ));
+                }
+            } catch (Exception e) {
+                log.error("Error generating random comment", e);
                 return ResponseEntity.status(500).body(Map.of(
                         "success", false,
-                        "error", "Failed to generate comment content"
+                        "error", "Failed to generate comment"
                 ));
             }
-        } catch (Exception e) {
-            log.error("Error generating random comment", e);
-            return ResponseEntity.status(500).body(Map.of(
-                    "success", false,
-                    "error", "Failed to generate comment"
-            ));
-        }
+        })));
     }
 
     /**
@@ -156,24 +207,17 @@ public class CommentController {
     @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<String> generateCommentStream(
             @PathVariable Long postId,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User user) {
 
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
+        if (user == null) {
             return Flux.just("event: error\ndata: Unauthorized\n\n");
         }
 
-        Optional<User> userOpt = userService.findById(userId);
-        if (userOpt.isEmpty()) {
-            return Flux.just("event: error\ndata: User not found\n\n");
-        }
-
         Optional<Post> postOpt = postRepository.findById(postId);
         if (postOpt.isEmpty()) {
             return Flux.just("event: error\ndata: Post not found\n\n");
         }
 
-        User user = userOpt.get();
         Post post = postOpt.get();
         StringBuilder contentBuilder = new StringBuilder();
 
@@ -211,75 +255,79 @@ public class CommentController {
      * AI 生成回复评论
      */
     @PostMapping("/{commentId}/reply/generate")
-    public ResponseEntity<Map<String, Object>> generateReply(
+    public DeferredResult<ResponseEntity<Map<String, Object>>> generateReply(
             @PathVariable Long postId,
             @PathVariable Long commentId,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User user,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
-            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        if (user == null) {
+            return GenerationExecutor.immediate(ResponseEntity.status(401).body(Map.of("error", "Unauthorized")));
         }
 
-        Optional<User> userOpt = userService.findById(userId);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
-        }
-
-        Optional<Post> postOpt = postRepository.findById(postId);
+        Optional<Post> postOpt = postRepository.findWithUserById(postId);
         if (postOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "Post not found"));
+            return GenerationExecutor.immediate(ResponseEntity.status(404).body(Map.of("error", "Post not found")));
         }
 
-        Optional<Comment> commentOpt = commentService.findById(commentId);
+        Optional<Comment> commentOpt = commentService.findWithUserById(commentId);
         if (commentOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "Comment not found"));
+            return GenerationExecutor.immediate(ResponseEntity.status(404).body(Map.of("error", "Comment not found")));
+        }
+        if (!CommentPath.acceptsReplies(commentOpt.get())) {
+            return GenerationExecutor.immediate(ResponseEntity.status(400).body(Map.of("error", "Reply depth limit reached")));
         }
 
-        try {
-            Comment reply = commentService.generateReply(postOpt.get(), userOpt.get(), commentOpt.get());
-            if (reply != null) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", true);
-                response.put("comment", commentService.toDTO(reply));
-                return ResponseEntity.ok(response);
-            } else {
+        return generationExecutor.respond(idempotencyService.execute(user.getId(), "generate-reply:" + commentId, idempotencyKey, () -> generationExecutor.submit(() -> {
+            try {
+                Comment reply = commentService.generateReply(postOpt.get(), user, commentOpt.get());
+                if (reply != null) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("comment", commentService.toDTO(reply));
+                    return ResponseEntity.ok(response);
+                } else {
+                    return ResponseEntity.status(500).body(Map.of(
+                            "success", false,
+                            "error", "Failed to generate reply content"
+                    ));
+                }
+            } catch (Exception e) {
+                log.error("Error generating reply", e);
                 return ResponseEntity.status(500).body(Map.of(
                         "success", false,
-                        "error", "Failed to generate reply content"
+                        "error", "Failed to generate reply"
                 ));
             }
-        } catch (Exception e) {
-            log.error("Error generating reply", e);
-            return ResponseEntity.status(500).body(Map.of(
-                    "success", false,
-                    "error", "Failed to generate reply"
-            ));
-        }
+        })));
     }
 
     /**
      * 邀请随机AI用户回复评论
      */
     @PostMapping("/{commentId}/reply/generate-random")
-    public ResponseEntity<Map<String, Object>> generateRandomReply(
+    public DeferredResult<ResponseEntity<Map<String, Object>>> generateRandomReply(
             @PathVariable Long postId,
             @PathVariable Long commentId,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         Long userId = authHelper.extractUserId(authHeader);
         if (userId == null) {
-            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized - please login first"));
+            return GenerationExecutor.immediate(ResponseEntity.status(401).body(Map.of("error", "Unauthorized - please login first")));
         }
 
-        Optional<Post> postOpt = postRepository.findById(postId);
+        Optional<Post> postOpt = postRepository.findWithUserById(postId);
         if (postOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "Post not found"));
+            return GenerationExecutor.immediate(ResponseEntity.status(404).body(Map.of("error", "Post not found")));
         }
 
-        Optional<Comment> commentOpt = commentService.findById(commentId);
+        Optional<Comment> commentOpt = commentService.findWithUserById(commentId);
         if (commentOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "Comment not found"));
+            return GenerationExecutor.immediate(ResponseEntity.status(404).body(Map.of("error", "Comment not found")));
+        }
+        if (!CommentPath.acceptsReplies(commentOpt.get())) {
+            return GenerationExecutor.immediate(ResponseEntity.status(400).body(Map.of("error", "Reply depth limit reached")));
         }
 
         Post post = postOpt.get();
@@ -289,34 +337,36 @@ public class CommentController {
         List<User> randomUsers = userService.findRandomUsersExcludingMultiple(
                 List.of(post.getUser().getId(), parentComment.getUser().getId()), 1);
         if (randomUsers.isEmpty()) {
-            return ResponseEntity.status(400).body(Map.of(
+            return GenerationExecutor.immediate(ResponseEntity.status(400).body(Map.of(
                     "success", false,
                     "error", "No other users available to reply"
-            ));
+            )));
         }
 
         User replier = randomUsers.get(0);
 
-        try {
-            Comment reply = commentService.generateReply(post, replier, parentComment);
-            if (reply != null) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", true);
-                response.put("comment", commentService.toDTO(reply));
-                return ResponseEntity.ok(response);
-            } else {
+        return generationExecutor.respond(idempotencyService.execute(userId, "generate-random-reply:" + commentId, idempotencyKey, () -> generationExecutor.submit(() -> {
+            try {
+                Comment reply = commentService.generateReply(post, replier, parentComment);
+                if (reply != null) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("comment", commentService.toDTO(reply));
+                    return ResponseEntity.ok(response);
+                } else {
+                    return ResponseEntity.status(500).body(Map.of(
+                            "success", false,
+                            "error", "Failed to generate reply content"
+                    ));
+                }
+            } catch (Exception e) {
+                log.error("Error generating random reply", e);
                 return ResponseEntity.status(500).body(Map.of(
                         "success", false,
-                        "error", "Failed to generate reply content"
+                        "error", "Failed to generate reply"
                 ));
             }
-        } catch (Exception e) {
-            log.error("Error generating random reply", e);
-            return ResponseEntity.status(500).body(Map.of(
-                    "success", false,
-                    "error", "Failed to generate reply"
-            ));
-        }
+        })));
     }
 
     /**
@@ -326,18 +376,12 @@ public class CommentController {
     public Flux<String> generateReplyStream(
             @PathVariable Long postId,
             @PathVariable Long commentId,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User user) {
 
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
+        if (user == null) {
             return Flux.just("event: error\ndata: Unauthorized\n\n");
         }
 
-        Optional<User> userOpt = userService.findById(userId);
-        if (userOpt.isEmpty()) {
-            return Flux.just("event: error\ndata: User not found\n\n");
-        }
-
         Optional<Post> postOpt = postRepository.findById(postId);
         if (postOpt.isEmpty()) {
             return Flux.just("event: error\ndata: Post not found\n\n");
@@ -347,8 +391,10 @@ public class CommentController {
         if (commentOpt.isEmpty()) {
             return Flux.just("event: error\ndata: Comment not found\n\n");
         }
+        if (!CommentPath.acceptsReplies(commentOpt.get())) {
+            return Flux.just("event: error\ndata: Reply depth limit reached\n\n");
+        }
 
-        User user = userOpt.get();
         Post post = postOpt.get();
         Comment parentComment = commentOpt.get();
         StringBuilder contentBuilder = new StringBuilder();
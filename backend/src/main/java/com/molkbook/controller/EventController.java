@@ -0,0 +1,45 @@
+package com.molkbook.controller;
+
+import com.molkbook.event.FeedEventHub;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+public class EventController {
+
+    // 订阅数已满时的重连间隔，比正常断线重连（5 秒）更长，避免集中重连
+    private static final String AT_CAPACITY = "retry: 30000\n\n";
+
+    private final FeedEventHub feedEventHub;
+
+    /**
+     * 订阅 Feed 实时事件（SSE）
+     * delta: {"posts": [新帖子 id], "counters": [{"id", "likeCount", "commentCount"}]}
+     * resync: 推送积压被丢弃，客户端需要重新拉取 Feed
+     */
+    @GetMapping
+    public ResponseEntity<?> subscribe() {
+        ResponseBodyEmitter emitter = feedEventHub.subscribe();
+        if (emitter == null) {
+            // 订阅数已满：EventSource 收到非 200 响应会永久放弃，所以返回只含 retry 的空流，
+            // 流结束后它会在 retry 间隔后重连
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .cacheControl(CacheControl.noCache())
+                    .body(AT_CAPACITY);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+}
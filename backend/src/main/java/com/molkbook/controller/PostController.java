@@ -1,23 +1,33 @@
 package com.molkbook.controller;
 
 import com.molkbook.config.AuthHelper;
+import com.molkbook.config.CurrentUser;
+import com.molkbook.datasource.ReadRouting;
+import com.molkbook.dto.FieldSelection;
 import com.molkbook.dto.PostDTO;
 import com.molkbook.entity.Post;
 import com.molkbook.entity.User;
 import com.molkbook.service.AIGenerationService;
+import com.molkbook.service.ContentVersionTracker;
+import com.molkbook.service.GenerationExecutor;
+import com.molkbook.service.IdempotencyService;
 import com.molkbook.service.PostService;
-import com.molkbook.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 import reactor.core.publisher.Flux;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -26,27 +36,107 @@ import java.util.Optional;
 public class PostController {
 
     private static final int MAX_PAGE_SIZE = 100;
+    // 允许客户端缓存，但每次使用前都要带 ETag 重新验证
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
 
     private final PostService postService;
-    private final UserService userService;
     private final AuthHelper authHelper;
     private final AIGenerationService aiGenerationService;
+    private final ContentVersionTracker contentVersionTracker;
+    private final ReadRouting readRouting;
+    private final IdempotencyService idempotencyService;
+    private final GenerationExecutor generationExecutor;
 
     /**
      * 获取帖子列表
-     * @param sortBy: newest(默认), likes, comments, hot
+     * @param sortBy: newest(默认), likes, comments, hot, foryou(个性化推荐)
+     * @param fields 只返回指定字段，例如 id,content,user(id,name,avatar),likeCount（见 FieldSelection）
      */
     @GetMapping
-    public ResponseEntity<Page<PostDTO>> getPosts(
+    public ResponseEntity<Page<?>> getPosts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "newest") String sortBy,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            FieldSelection fields,
+            WebRequest request) {
         // 限制分页大小，防止请求过大
         int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
         int safePage = Math.max(0, page);
         Long currentUserId = authHelper.extractUserId(authHeader);
-        return ResponseEntity.ok(postService.getPosts(safePage, safeSize, sortBy, currentUserId));
+
+        // 为你推荐的排序还依赖候选集刷新和时间衰减，不做条件请求；
+        // 刚变化的内容可能还没同步到从库，此时也不带 ETag
+        if (!"foryou".equals(sortBy)) {
+            long version = contentVersionTracker.feedVersion();
+            if (readRouting.isReplicated(version) && request.checkNotModified(contentVersionTracker.etag(version, currentUserId))) {
+                return null;
+            }
+        }
+        // 缓存的是完整字段的 JSON 片段，只能写进 JSON 响应；请求二进制格式或部分字段时按 DTO 序列化
+        Page<?> posts = acceptsBinary(accept) || !fields.isAll()
+                ? postService.getPosts(safePage, safeSize, sortBy, currentUserId, fields)
+                : postService.getPostsJson(safePage, safeSize, sortBy, currentUserId);
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(posts);
+    }
+
+    private static boolean acceptsBinary(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(type ->
+                    type.equalsTypeAndSubtype(SMILE) || type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 获取话题 Feed，按时间倒序，使用游标分页
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     */
+    @GetMapping(params = "topic")
+    public ResponseEntity<?> getTopicPosts(
+            @RequestParam String topic,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            FieldSelection fields) {
+        if (topic.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Topic is required"));
+        }
+        int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        Long currentUserId = authHelper.extractUserId(authHeader);
+        try {
+            return ResponseEntity.ok(postService.getTopicPosts(topic.trim(), cursor, safeSize, currentUserId, fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+    }
+
+    /**
+     * 批量获取帖子（通知列表、嵌入卡片等），按 ids 的顺序返回，不存在的帖子跳过；不含评论预览
+     * @param ids 逗号分隔，最多 100 个
+     */
+    @GetMapping(params = {"ids", "!topic"})
+    public ResponseEntity<?> getPostsByIds(
+            @RequestParam String ids,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            FieldSelection fields) {
+        List<Long> postIds;
+        try {
+            postIds = BatchIds.parse(ids);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        Long currentUserId = authHelper.extractUserId(authHeader);
+        return ResponseEntity.ok(postService.getPostsByIds(postIds, currentUserId, fields));
     }
 
     /**
@@ -56,10 +146,11 @@ public class PostController {
     public ResponseEntity<Page<PostDTO>> getUserPosts(
             @PathVariable Long userId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            FieldSelection fields) {
         int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
         int safePage = Math.max(0, page);
-        return ResponseEntity.ok(postService.getUserPosts(userId, safePage, safeSize));
+        return ResponseEntity.ok(postService.getUserPosts(userId, safePage, safeSize, fields));
     }
 
     /**
@@ -68,12 +159,18 @@ public class PostController {
     @GetMapping("/{id}")
     public ResponseEntity<PostDTO> getPostById(
             @PathVariable Long id,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            FieldSelection fields,
+            WebRequest request) {
+        // 先比较版本，未修改时不加载帖子和评论
         Long currentUserId = authHelper.extractUserId(authHeader);
-        User currentUser = currentUserId != null ? userService.findById(currentUserId).orElse(null) : null;
-
-        return postService.findById(id)
-                .map(post -> ResponseEntity.ok(postService.toDTOWithComments(post, currentUser)))
+        long version = contentVersionTracker.postVersion(id);
+        // 刚变化的内容可能还没同步到从库，此时不带 ETag，避免客户端把旧内容当作新版本缓存
+        if (readRouting.isReplicated(version) && request.checkNotModified(contentVersionTracker.etag(version, currentUserId))) {
+            return null;
+        }
+        return postService.getPostById(id, currentUserId, fields)
+                .map(post -> ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(post))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -83,19 +180,13 @@ public class PostController {
     @PostMapping("/{id}/like")
     public ResponseEntity<Map<String, Object>> likePost(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User user) {
 
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
+        if (user == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
 
-        Optional<User> userOpt = userService.findById(userId);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
-        }
-
-        boolean success = postService.likePost(id, userOpt.get());
+        boolean success = postService.likePost(id, user);
         Map<String, Object> response = new HashMap<>();
         response.put("success", success);
         if (!success) {
@@ -110,19 +201,13 @@ public class PostController {
     @DeleteMapping("/{id}/like")
     public ResponseEntity<Map<String, Object>> unlikePost(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User user) {
 
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
+        if (user == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
 
-        Optional<User> userOpt = userService.findById(userId);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
-        }
-
-        boolean success = postService.unlikePost(id, userOpt.get());
+        boolean success = postService.unlikePost(id, user);
         Map<String, Object> response = new HashMap<>();
         response.put("success", success);
         return ResponseEntity.ok(response);
@@ -130,41 +215,39 @@ public class PostController {
 
     /**
      * AI 生成帖子
+     * 在 GenerationExecutor 中异步执行，繁忙时返回 503，超时返回 504
      */
     @PostMapping("/generate")
-    public ResponseEntity<Map<String, Object>> generatePost(
-            @RequestHeader("Authorization") String authHeader) {
-
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
-            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
-        }
+    public DeferredResult<ResponseEntity<Map<String, Object>>> generatePost(
+            @CurrentUser User user,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
-        Optional<User> userOpt = userService.findById(userId);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+        if (user == null) {
+            return GenerationExecutor.immediate(ResponseEntity.status(401).body(Map.of("error", "Unauthorized")));
         }
 
-        try {
-            Post post = postService.generatePost(userOpt.get());
-            if (post != null) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", true);
-                response.put("post", postService.toDTO(post));
-                return ResponseEntity.ok(response);
-            } else {
+        return generationExecutor.respond(idempotencyService.execute(user.getId(), "generate-post", idempotencyKey, () -> generationExecutor.submit(() -> {
+            try {
+                Post post = postService.generatePost(user);
+                if (post != null) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("post", postService.toDTO(post));
+                    return ResponseEntity.ok(response);
+                } else {
+                    return ResponseEntity.status(500).body(Map.of(
+                            "success", false,
+                            "error", "Failed to generate post content"
+                    ));
+                }
+            } catch (Exception e) {
+                log.error("Error generating post", e);
                 return ResponseEntity.status(500).body(Map.of(
                         "success", false,
-                        "error", "Failed to generate post content"
+                        "error", "Failed to generate post"
                 ));
             }
-        } catch (Exception e) {
-            log.error("Error generating post", e);
-            return ResponseEntity.status(500).body(Map.of(
-                    "success", false,
-                    "error", "Failed to generate post"
-            ));
-        }
+        })));
     }
 
     /**
@@ -174,19 +257,12 @@ public class PostController {
      */
     @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<String> generatePostStream(
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User user) {
 
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
+        if (user == null) {
             return Flux.just("event: error\ndata: Unauthorized\n\n");
         }
 
-        Optional<User> userOpt = userService.findById(userId);
-        if (userOpt.isEmpty()) {
-            return Flux.just("event: error\ndata: User not found\n\n");
-        }
-
-        User user = userOpt.get();
         StringBuilder contentBuilder = new StringBuilder();
 
         return aiGenerationService.generatePostContentStream(user)
@@ -218,25 +294,19 @@ public class PostController {
     @PostMapping("/create")
     public ResponseEntity<Map<String, Object>> createPost(
             @RequestBody Map<String, String> request,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User user) {
 
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
+        if (user == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
 
-        Optional<User> userOpt = userService.findById(userId);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
-        }
-
         String content = request.get("content");
         if (content == null || content.trim().isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Content is required"));
         }
 
         try {
-            Post post = postService.createPost(userOpt.get(), content.trim(), null);
+            Post post = postService.createPost(user, content.trim(), null);
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("post", postService.toDTO(post));
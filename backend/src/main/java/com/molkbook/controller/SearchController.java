@@ -0,0 +1,70 @@
+package com.molkbook.controller;
+
+import com.molkbook.config.AuthHelper;
+import com.molkbook.dto.SearchResultDTO;
+import com.molkbook.search.SearchIndex;
+import com.molkbook.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_QUERY_LENGTH = 100;
+
+    private final SearchService searchService;
+    private final AuthHelper authHelper;
+
+    /**
+     * 搜索帖子和评论，按相关度排序
+     * @param type: all(默认), post, comment
+     */
+    @GetMapping
+    public ResponseEntity<?> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "all") String type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+
+        String query = q.trim();
+        if (query.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Query is required"));
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Query is too long"));
+        }
+
+        SearchIndex.DocType docType;
+        switch (type) {
+            case "post":
+                docType = SearchIndex.DocType.POST;
+                break;
+            case "comment":
+                docType = SearchIndex.DocType.COMMENT;
+                break;
+            case "all":
+                docType = null;
+                break;
+            default:
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid type: " + type));
+        }
+
+        int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        int safePage = Math.max(0, page);
+        Long currentUserId = authHelper.extractUserId(authHeader);
+        Page<SearchResultDTO> results = searchService.search(query, docType, safePage, safeSize, currentUserId);
+        return ResponseEntity.ok(results);
+    }
+}
@@ -1,15 +1,22 @@
 package com.molkbook.controller;
 
-import com.molkbook.config.AuthHelper;
+import com.molkbook.config.CurrentUser;
+import com.molkbook.datasource.ReadRouting;
+import com.molkbook.dto.FieldSelection;
 import com.molkbook.dto.UserDTO;
 import com.molkbook.entity.User;
+import com.molkbook.service.ContentVersionTracker;
 import com.molkbook.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -17,32 +24,51 @@ import java.util.Optional;
 public class UserController {
 
     private final UserService userService;
-    private final AuthHelper authHelper;
+    private final ContentVersionTracker contentVersionTracker;
+    private final ReadRouting readRouting;
 
     /**
      * 获取当前用户信息
      */
     @GetMapping("/me")
-    public ResponseEntity<UserDTO> getCurrentUser(
-            @RequestHeader("Authorization") String authHeader) {
-
-        Long userId = authHelper.extractUserId(authHeader);
-        if (userId == null) {
+    public ResponseEntity<UserDTO> getCurrentUser(@CurrentUser User user, FieldSelection fields) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        return ResponseEntity.ok(userService.toDTO(user, fields));
+    }
 
-        Optional<User> user = userService.findById(userId);
-        return user.map(u -> ResponseEntity.ok(userService.toDTO(u)))
-                .orElse(ResponseEntity.notFound().build());
+    /**
+     * 批量获取用户资料，按 ids 的顺序返回，不存在的用户跳过
+     * @param ids 逗号分隔，最多 100 个
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getUsersByIds(@RequestParam String ids, FieldSelection fields) {
+        List<Long> userIds;
+        try {
+            userIds = BatchIds.parse(ids);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(userService.getProfiles(userIds, fields));
     }
 
     /**
      * 获取用户详情
      */
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
-        Optional<User> user = userService.findById(id);
-        return user.map(u -> ResponseEntity.ok(userService.toDTO(u)))
+    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id, FieldSelection fields, WebRequest request) {
+        // 先比较版本，未修改时不查询用户和计数
+        long version = contentVersionTracker.userVersion(id);
+        // 刚变化的内容可能还没同步到从库，此时不带 ETag，避免客户端把旧内容当作新版本缓存
+        if (readRouting.isReplicated(version) && request.checkNotModified(contentVersionTracker.etag(version, null))) {
+            return null;
+        }
+        return userService.getProfile(id, fields)
+                .map(profile -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(profile))
                 .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -0,0 +1,27 @@
+package com.molkbook.datasource;
+
+import com.molkbook.config.Bulkhead;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 主库连接按隔离舱分区：后台线程使用单独的小连接池，定时任务集中执行时不会占满用户请求使用的连接池
+ */
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource {
+
+    public BulkheadRoutingDataSource(DataSource interactive, DataSource background) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Bulkhead.INTERACTIVE, interactive);
+        targets.put(Bulkhead.BACKGROUND, background);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(interactive);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Bulkhead.current();
+    }
+}
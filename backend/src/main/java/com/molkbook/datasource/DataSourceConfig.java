@@ -0,0 +1,106 @@
+package com.molkbook.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据源
+ * - 主库沿用 spring.datasource.* 配置，连接池名为 primary；后台隔离舱另有一个连接到主库的小连接池 background
+ * - 配置了 datasource.replicas 时启用读写分离：从库复用主库的账号和连接池参数，连接池名为 replica-N，
+ *   只读事务（包括后台任务的）路由到从库，其余按隔离舱走 primary 或 background；
+ *   从库获取连接的超时较短，从库宕机时读请求和延迟探测很快失败，不会等满主库的 connectionTimeout
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final String REPLICAS_ENABLED = "!'${datasource.replicas:}'.isBlank()";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * 后台任务是整点集中触发的突发负载，空闲时不保留连接
+     */
+    @Bean
+    public HikariDataSource backgroundDataSource(HikariDataSource primaryDataSource,
+                                                 @Value("${datasource.background.pool-size:3}") int poolSize) {
+        HikariDataSource pool = new HikariDataSource();
+        primaryDataSource.copyStateTo(pool);
+        pool.setPoolName("background");
+        pool.setMaximumPoolSize(poolSize);
+        pool.setMinimumIdle(0);
+        return pool;
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICAS_ENABLED)
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             HikariDataSource backgroundDataSource,
+                                                             @Value("${datasource.replicas}") String replicas,
+                                                             @Value("${datasource.max-lag-seconds:5}") long maxLagSeconds,
+                                                             @Value("${datasource.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                                             @Value("${datasource.lag-probe-interval-ms:1000}") long probeIntervalMillis,
+                                                             @Value("${datasource.replica-connection-timeout-ms:2000}") long connectionTimeoutMillis) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : replicas.split(",")) {
+            HikariDataSource pool = new HikariDataSource();
+            primaryDataSource.copyStateTo(pool);
+            pool.setJdbcUrl(url.trim());
+            pool.setPoolName("replica-" + (pools.size() + 1));
+            pool.setReadOnly(true);
+            pool.setConnectionTimeout(connectionTimeoutMillis);
+            pool.setValidationTimeout(Math.max(250, Math.min(pool.getValidationTimeout(), connectionTimeoutMillis / 2)));
+            pool.setMetricsTrackerFactory(null);  // 指标由 ReplicaRoutingDataSource 绑定
+            pools.add(pool);
+        }
+        return new ReplicaRoutingDataSource(bulkheadRouting(primaryDataSource, backgroundDataSource),
+                pools, maxLagSeconds, lagQuery, probeIntervalMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource backgroundDataSource,
+                                 ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource) {
+        ReplicaRoutingDataSource replicaRouting = replicaRoutingDataSource.getIfAvailable();
+        if (replicaRouting == null) {
+            return bulkheadRouting(primaryDataSource, backgroundDataSource);
+        }
+        return new LazyConnectionDataSourceProxy(replicaRouting);
+    }
+
+    private static BulkheadRoutingDataSource bulkheadRouting(DataSource primary, DataSource background) {
+        BulkheadRoutingDataSource routing = new BulkheadRoutingDataSource(primary, background);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    /**
+     * 每个事务结束后归还连接：默认的 hold 模式下 open-in-view 会话会一直占用第一次拿到的连接，
+     * 请求中后续的事务就无法再按只读标记切换主从
+     */
+    @Bean
+    @ConditionalOnExpression(REPLICAS_ENABLED)
+    public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
@@ -0,0 +1,97 @@
+package com.molkbook.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 读写分离的路由策略
+ * - 只读事务默认可以走从库，当前线程被标记为读主库时除外
+ * - 用户写入（发帖、评论、点赞、资料更新）提交后的 sticky-seconds 内，该用户的请求都读主库（读己之写）
+ * - 未配置从库时所有方法都退化为无操作
+ */
+@Component
+public class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final boolean replicasEnabled;
+    private final long stickyMillis;
+    private final long maxLagMillis;
+
+    // userId -> 读主库截止时间
+    private final Map<Long, Long> recentWriters = new ConcurrentHashMap<>();
+
+    public ReadRouting(@Value("${datasource.replicas:}") String replicas,
+                       @Value("${datasource.sticky-seconds:10}") long stickySeconds,
+                       @Value("${datasource.max-lag-seconds:5}") long maxLagSeconds) {
+        this.replicasEnabled = !replicas.isBlank();
+        this.stickyMillis = stickySeconds * 1000;
+        this.maxLagMillis = maxLagSeconds * 1000;
+    }
+
+    /**
+     * 当前线程之后的只读事务都走主库，直到 clear
+     */
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    public static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * 在主库上执行一次读取，用于结果会被缓存、不能接受从库延迟的加载
+     */
+    public static <T> T onPrimary(Supplier<T> loader) {
+        if (isPrimaryRequired()) {
+            return loader.get();
+        }
+        requirePrimary();
+        try {
+            return loader.get();
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * 记录用户的写入，应在事务提交后调用
+     */
+    public void recordWrite(Long userId) {
+        if (replicasEnabled && userId != null) {
+            recentWriters.put(userId, System.currentTimeMillis() + stickyMillis);
+        }
+    }
+
+    public boolean isRecentWriter(Long userId) {
+        if (!replicasEnabled || userId == null) {
+            return false;
+        }
+        Long until = recentWriters.get(userId);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * 某个版本戳的内容是否一定已经同步到从库；否则响应不能带这个版本的 ETag，
+     * 以免客户端把从库上的旧内容当作新版本缓存下来
+     */
+    public boolean isReplicated(long version) {
+        return !replicasEnabled || isPrimaryRequired() || System.currentTimeMillis() - version >= maxLagMillis;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        recentWriters.values().removeIf(until -> until <= now);
+    }
+}
@@ -0,0 +1,38 @@
+package com.molkbook.datasource;
+
+import com.molkbook.config.AuthHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 按请求决定只读事务能否走从库：写请求和刚写入过的用户的请求都读主库
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadRoutingFilter extends OncePerRequestFilter {
+
+    private final ReadRouting readRouting;
+    private final AuthHelper authHelper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean safeMethod = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        if (!safeMethod || readRouting.isRecentWriter(authHelper.extractUserId(request.getHeader(HttpHeaders.AUTHORIZATION)))) {
+            ReadRouting.requirePrimary();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadRouting.clear();
+        }
+    }
+}
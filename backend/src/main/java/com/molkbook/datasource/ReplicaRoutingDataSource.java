@@ -0,0 +1,196 @@
+package com.molkbook.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 只读事务轮询路由到延迟在容忍范围内的从库，其余（写事务、无事务、需要读主库、没有可用从库）走主库
+ * 路由键在真正获取连接时确定，需要外层包一层 LazyConnectionDataSourceProxy，
+ * 使连接推迟到事务的只读标记设置之后再获取
+ * 延迟探测在自己的线程上执行，从库不可用时获取连接会阻塞到超时，不能占用共享的定时任务线程
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+
+    static final String PRIMARY = "primary";
+    private static final int PROBE_TIMEOUT_SECONDS = 1;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final long probeIntervalMillis;
+    private final LongAdder primaryReads = new LongAdder();
+    private final ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools, long maxLagSeconds,
+                                    String lagQuery, long probeIntervalMillis) {
+        this.maxLagMillis = maxLagSeconds * 1000;
+        this.lagQuery = lagQuery;
+        this.probeIntervalMillis = probeIntervalMillis;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (HikariDataSource pool : replicaPools) {
+            replicas.add(new Replica(pool));
+            targets.put(pool.getPoolName(), pool);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        prober.scheduleWithFixedDelay(() -> {
+            try {
+                probeLag();
+            } catch (RuntimeException e) {
+                // 抛出异常会取消之后的探测
+                log.warn("Replica lag probe failed", e);
+            }
+        }, 0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 数据源先于 MeterRegistry 创建，指标在注册表就绪后再绑定
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        readCounter(registry, PRIMARY, primaryReads);
+        for (Replica replica : replicas) {
+            String name = replica.pool.getPoolName();
+            readCounter(registry, name, replica.reads);
+            Gauge.builder("molkbook.datasource.replica.lag", replica, r -> r.lagMillis / 1000.0)
+                    .description("Replication lag measured by the last probe, -1 when unavailable")
+                    .baseUnit("seconds")
+                    .tag("replica", name)
+                    .register(registry);
+            // 从库连接池不是 Spring Bean，不会自动绑定 hikaricp.* 指标
+            replica.pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+    }
+
+    private static void readCounter(MeterRegistry registry, String target, LongAdder count) {
+        FunctionCounter.builder("molkbook.datasource.read.transactions", count, LongAdder::sum)
+                .description("Read-only transactions by routing target")
+                .tag("target", target)
+                .register(registry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        if (!ReadRouting.isPrimaryRequired()) {
+            int size = replicas.size();
+            int start = Math.floorMod(next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (replica.healthy) {
+                    replica.reads.increment();
+                    return replica.pool.getPoolName();
+                }
+            }
+        }
+        primaryReads.increment();
+        return PRIMARY;
+    }
+
+    /**
+     * 定期探测每个从库的复制延迟；探测失败或超过容忍值的从库暂停使用，恢复后自动加回
+     */
+    public void probeLag() {
+        for (Replica replica : replicas) {
+            long lag = measureLag(replica.pool);
+            boolean healthy = lag >= 0 && lag <= maxLagMillis;
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    log.info("Replica {} in rotation (lag {}ms)", replica.pool.getPoolName(), lag);
+                } else {
+                    log.warn("Replica {} removed from rotation (lag {}ms, max {}ms)",
+                            replica.pool.getPoolName(), lag, maxLagMillis);
+                }
+            }
+            replica.lagMillis = lag;
+            replica.healthy = healthy;
+        }
+    }
+
+    /**
+     * @return 延迟毫秒数，不可用时返回 -1
+     */
+    private long measureLag(HikariDataSource pool) {
+        try (Connection connection = pool.getConnection()) {
+            if (lagQuery.isBlank()) {
+                return connection.isValid(PROBE_TIMEOUT_SECONDS) ? 0 : -1;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(PROBE_TIMEOUT_SECONDS);
+                ResultSet rs = statement.executeQuery(lagQuery);
+                if (!rs.next()) {
+                    return -1;  // 没有复制状态，不是从库
+                }
+                // SHOW REPLICA STATUS 取 Seconds_Behind_Source 列，自定义查询取第一列
+                int column = lagColumn(rs);
+                long seconds = rs.getLong(column);
+                return rs.wasNull() ? -1 : seconds * 1000;
+            }
+        } catch (SQLException e) {
+            log.debug("Lag probe failed for replica {}: {}", pool.getPoolName(), e.getMessage());
+            return -1;
+        }
+    }
+
+    private static int lagColumn(ResultSet rs) throws SQLException {
+        try {
+            return rs.findColumn("Seconds_Behind_Source");
+        } catch (SQLException e) {
+            return 1;
+        }
+    }
+
+    public void close() {
+        prober.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        final HikariDataSource pool;
+        final LongAdder reads = new LongAdder();
+        // 启动后第一次探测之前不使用
+        volatile boolean healthy;
+        volatile long lagMillis = -1;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
@@ -20,5 +20,7 @@ public class CommentDTO {
     private LocalDateTime createdAt;
     private Long parentId;           // 父评论ID
     private UserDTO replyToUser;     // 被回复的用户
-    private List<CommentDTO> replies; // 子评论列表
+    private List<CommentDTO> replies; // 子评论列表（预览时只包含前几条）
+    private Integer replyCount;      // 线程内回复总数（含嵌套回复，只在顶级评论上填充）
+    private String repliesCursor;    // replies 未包含全部回复时，从这里继续获取
 }
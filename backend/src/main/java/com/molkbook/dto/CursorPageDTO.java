@@ -0,0 +1,19 @@
+package com.molkbook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> content;
+    private String nextCursor;   // 下一页游标，没有更多数据时为空
+    private Boolean hasMore;
+    private Integer size;
+}
@@ -0,0 +1,121 @@
+package com.molkbook.dto;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 响应字段选择（fields 参数），例如 {@code id,content,user(id,name,avatar),likeCount}
+ * - 逗号分隔字段名，括号内为嵌套对象的字段；嵌套对象不带括号时返回全部字段
+ * - 不存在的字段名忽略
+ * 构建 DTO 时未选择的字段不赋值（序列化时省略），需要额外查询的字段（计数、评论预览等）也不查询
+ */
+public final class FieldSelection {
+
+    public static final FieldSelection ALL = new FieldSelection(null);
+
+    private static final int MAX_LENGTH = 1000;
+
+    // null 表示全部字段
+    private final Map<String, FieldSelection> fields;
+
+    private FieldSelection(Map<String, FieldSelection> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param spec 为空时选择全部字段
+     * @throws IllegalArgumentException 格式不正确
+     */
+    public static FieldSelection parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return ALL;
+        }
+        if (spec.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Invalid fields: too long");
+        }
+        Parser parser = new Parser(spec);
+        FieldSelection selection = parser.list();
+        if (parser.pos != spec.length()) {
+            throw new IllegalArgumentException("Invalid fields: unexpected '" + spec.charAt(parser.pos) + "'");
+        }
+        return selection;
+    }
+
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    public boolean includes(String field) {
+        return fields == null || fields.containsKey(field);
+    }
+
+    /**
+     * 嵌套对象的字段选择；调用前应先确认 includes(field)
+     */
+    public FieldSelection nested(String field) {
+        return fields == null ? ALL : fields.getOrDefault(field, ALL);
+    }
+
+    private static final class Parser {
+        private final String spec;
+        private int pos;
+
+        private Parser(String spec) {
+            this.spec = spec;
+        }
+
+        // list := field (',' field)*    field := name ['(' list ')']
+        private FieldSelection list() {
+            Map<String, FieldSelection> fields = new HashMap<>();
+            do {
+                String name = name();
+                FieldSelection nested = ALL;
+                if (peek() == '(') {
+                    pos++;
+                    nested = list();
+                    if (peek() != ')') {
+                        throw new IllegalArgumentException("Invalid fields: missing ')' after " + name);
+                    }
+                    pos++;
+                }
+                fields.put(name, nested);
+            } while (consume(','));
+            return new FieldSelection(Collections.unmodifiableMap(fields));
+        }
+
+        private String name() {
+            skipSpaces();
+            int start = pos;
+            while (pos < spec.length() && (Character.isLetterOrDigit(spec.charAt(pos)) || spec.charAt(pos) == '_')) {
+                pos++;
+            }
+            if (start == pos) {
+                throw new IllegalArgumentException("Invalid fields: field name expected at " + start);
+            }
+            String name = spec.substring(start, pos);
+            skipSpaces();
+            return name;
+        }
+
+        private boolean consume(char c) {
+            skipSpaces();
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private char peek() {
+            skipSpaces();
+            return pos < spec.length() ? spec.charAt(pos) : 0;
+        }
+
+        private void skipSpaces() {
+            while (pos < spec.length() && spec.charAt(pos) == ' ') {
+                pos++;
+            }
+        }
+    }
+}
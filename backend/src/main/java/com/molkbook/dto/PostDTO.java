@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class PostDTO {
@@ -22,5 +22,6 @@ public class PostDTO {
     private Integer likeCount;
     private Integer commentCount;
     private Boolean liked;  // 当前用户是否已点赞
-    private List<CommentDTO> comments;
+    private List<CommentDTO> comments;  // 详情页只包含前几个评论线程
+    private String commentsCursor;      // 还有更多线程时，用于 /comments?cursor= 继续获取
 }
@@ -0,0 +1,18 @@
+package com.molkbook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDTO {
+    private String type;          // post 或 comment
+    private Double score;         // BM25 得分
+    private Long postId;          // 所属帖子（评论结果用于跳转）
+    private PostDTO post;
+    private CommentDTO comment;
+}
@@ -12,7 +12,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_parent_id", columnList = "parent_id"),
+        @Index(name = "idx_root_path", columnList = "root_id, path")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -36,6 +39,16 @@ public class Comment {
     @JoinColumn(name = "parent_id")
     private Comment parent;
 
+    // 物化路径（见 CommentPath）：线程根评论 id、深度（根为 0）和展示顺序路径
+    @Column(name = "root_id")
+    private Long rootId;
+
+    @Column(name = "depth")
+    private Integer depth;
+
+    @Column(name = "path", length = 255)
+    private String path;
+
     // 子评论列表
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
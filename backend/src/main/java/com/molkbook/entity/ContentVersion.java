@@ -0,0 +1,40 @@
+package com.molkbook.entity;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * 各实例共享的内容版本戳，由 ContentVersionTracker 写入和轮询
+ * 只通过 save 插入新行；已有的行用条件 UPDATE 单调递增，不经过 merge，避免把较新的版本覆盖回旧值
+ */
+@Entity
+@Table(name = "content_versions", indexes = {
+        @Index(name = "idx_version", columnList = "version")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentVersion implements Persistable<String> {
+
+    // post:{id} 或 user:{id}
+    @Id
+    @Column(name = "content_key", length = 40)
+    private String contentKey;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Override
+    public String getId() {
+        return contentKey;
+    }
+
+    @Override
+    @Transient
+    public boolean isNew() {
+        return true;
+    }
+}
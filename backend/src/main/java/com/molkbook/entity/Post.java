@@ -12,7 +12,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_topic_created_at", columnList = "topic, created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,249 @@
+package com.molkbook.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feed 实时事件推送（SSE）
+ * 新帖子和点赞数 / 评论数变化先在内存中合并，每个 tick 只序列化一次，
+ * 再放入每个订阅者的有界队列；队列满时丢弃积压并发送 resync，让客户端重新拉取 Feed。
+ * 空闲连接只占用一个异步请求和一个空队列，不占用线程
+ */
+@Component
+@Slf4j
+public class FeedEventHub {
+
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESYNC = "event: resync\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final int maxSubscribers;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // 待推送的增量：同一帖子的计数在一个 tick 内只保留最新值
+    private final Queue<Long> pendingPosts = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Counters> pendingCounters = new ConcurrentHashMap<>();
+
+    private final ExecutorService sender;
+
+    private final Counter publishedCounter;
+    private final Counter resyncCounter;
+
+    public FeedEventHub(ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${events.timeout-minutes:30}") long timeoutMinutes,
+                        @Value("${events.buffer-size:32}") int bufferSize,
+                        @Value("${events.max-subscribers:10000}") int maxSubscribers,
+                        @Value("${events.sender-threads:2}") int senderThreads) {
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMinutes * 60_000;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "feed-events-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("molkbook.events.subscribers", subscribers, Set::size)
+                .description("Open feed event streams")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("molkbook.events.published")
+                .description("Delta events broadcast to subscribers")
+                .register(meterRegistry);
+        this.resyncCounter = Counter.builder("molkbook.events.resync")
+                .description("Subscriber buffers that overflowed and were told to resync")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 新建订阅；订阅数达到上限时返回 null
+     */
+    public ResponseBodyEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // 立即写出一帧，让代理尽早转发响应头，同时设置断线重连间隔
+        subscriber.offer("retry: 5000\n\n".getBytes(StandardCharsets.UTF_8));
+        return emitter;
+    }
+
+    public void postCreated(Long postId) {
+        pendingPosts.add(postId);
+    }
+
+    public void countersChanged(Long postId, Integer likeCount, Integer commentCount) {
+        pendingCounters.put(postId, new Counters(
+                likeCount != null ? likeCount : 0, commentCount != null ? commentCount : 0));
+    }
+
+    /**
+     * 合并这段时间内的增量，序列化一次后广播
+     */
+    @Scheduled(fixedDelayString = "${events.flush-interval-ms:500}")
+    public void flush() {
+        if (subscribers.isEmpty()) {
+            pendingPosts.clear();
+            pendingCounters.clear();
+            return;
+        }
+
+        List<Long> posts = new ArrayList<>();
+        for (Long postId = pendingPosts.poll(); postId != null; postId = pendingPosts.poll()) {
+            posts.add(postId);
+        }
+        List<Map<String, Object>> counters = new ArrayList<>();
+        for (Long postId : pendingCounters.keySet()) {
+            Counters value = pendingCounters.remove(postId);
+            if (value != null) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("id", postId);
+                item.put("likeCount", value.likeCount);
+                item.put("commentCount", value.commentCount);
+                counters.add(item);
+            }
+        }
+        if (posts.isEmpty() && counters.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("posts", posts);
+        delta.put("counters", counters);
+        byte[] frame;
+        try {
+            frame = ("event: delta\ndata: " + objectMapper.writeValueAsString(delta) + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize feed delta", e);
+            return;
+        }
+        broadcast(frame);
+        publishedCounter.increment();
+    }
+
+    /**
+     * 心跳注释帧，防止代理和浏览器因空闲断开连接
+     */
+    @Scheduled(fixedDelayString = "#{${events.heartbeat-seconds:15} * 1000}")
+    public void heartbeat() {
+        broadcast(HEARTBEAT);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void broadcast(byte[] frame) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(frame);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static final class Counters {
+        private final int likeCount;
+        private final int commentCount;
+
+        private Counters(int likeCount, int commentCount) {
+            this.likeCount = likeCount;
+            this.commentCount = commentCount;
+        }
+    }
+
+    /**
+     * 一个订阅者：有界队列 + 最多一个发送任务，慢客户端只影响自己的队列
+     */
+    private final class Subscriber {
+        private final ResponseBodyEmitter emitter;
+        private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+        private boolean draining;
+
+        private Subscriber(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(byte[] frame) {
+            boolean schedule;
+            synchronized (this) {
+                if (queue.size() >= bufferSize) {
+                    queue.clear();
+                    queue.add(RESYNC);
+                    resyncCounter.increment();
+                }
+                queue.add(frame);
+                schedule = !draining;
+                draining = true;
+            }
+            if (schedule) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                byte[] frame;
+                synchronized (this) {
+                    frame = queue.poll();
+                    if (frame == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(frame, MediaType.TEXT_EVENT_STREAM);
+                } catch (Exception e) {
+                    // 客户端已断开，容器会结束这个异步请求
+                    subscribers.remove(this);
+                    synchronized (this) {
+                        queue.clear();
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.molkbook.feed;
+
+import com.molkbook.entity.Post;
+import com.molkbook.entity.UserShade;
+import com.molkbook.search.CjkTokenizer;
+import com.molkbook.service.UserService;
+
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 推荐候选集的不可变快照，按列存储
+ * 新鲜度和互动分在构建时算好，请求时只需计算兴趣相似度
+ * 词项 id 随快照一起构建，旧快照被替换后词典也随之回收
+ */
+public final class CandidateSnapshot {
+
+    // 综合得分 = 相似度 * W_SIMILARITY + 新鲜度 * W_FRESHNESS + 互动 * W_ENGAGEMENT，各项都在 [0, 1]
+    static final float W_SIMILARITY = 0.6f;
+    static final float W_FRESHNESS = 0.25f;
+    static final float W_ENGAGEMENT = 0.15f;
+
+    private static final float TOPIC_WEIGHT = 2f;
+
+    final long[] postIds;
+    final long[] authorIds;
+    final float[] baseScores;
+    final SparseVector[] vectors;
+    private final TermDictionary dictionary;
+
+    private CandidateSnapshot(long[] postIds, long[] authorIds, float[] baseScores, SparseVector[] vectors,
+                              TermDictionary dictionary) {
+        this.postIds = postIds;
+        this.authorIds = authorIds;
+        this.baseScores = baseScores;
+        this.vectors = vectors;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @param posts 已去重的候选帖子
+     * @param shadesByAuthor 作者 id -> 兴趣标签
+     * @param halfLifeHours 新鲜度半衰期
+     */
+    public static CandidateSnapshot build(List<Post> posts, Map<Long, List<UserShade>> shadesByAuthor,
+                                          double halfLifeHours, long now) {
+        TermDictionary dictionary = new TermDictionary();
+        int n = posts.size();
+        long[] postIds = new long[n];
+        long[] authorIds = new long[n];
+        float[] baseScores = new float[n];
+        SparseVector[] vectors = new SparseVector[n];
+
+        double maxEngagement = 0;
+        double[] engagement = new double[n];
+        for (int i = 0; i < n; i++) {
+            Post post = posts.get(i);
+            int likes = post.getLikeCount() != null ? post.getLikeCount() : 0;
+            int comments = post.getCommentCount() != null ? post.getCommentCount() : 0;
+            // 评论比点赞更能代表互动
+            engagement[i] = Math.log1p(likes + 2.0 * comments);
+            maxEngagement = Math.max(maxEngagement, engagement[i]);
+        }
+
+        // 同一作者的帖子共用兴趣权重
+        Map<Long, Map<Integer, Float>> authorWeights = new HashMap<>();
+        double decay = Math.log(2) / halfLifeHours;
+        for (int i = 0; i < n; i++) {
+            Post post = posts.get(i);
+            long authorId = post.getUser().getId();
+            postIds[i] = post.getId();
+            authorIds[i] = authorId;
+
+            double ageHours = post.getCreatedAt() != null
+                    ? Math.max(0, now - toMillis(post)) / 3_600_000.0
+                    : halfLifeHours;
+            float freshness = (float) Math.exp(-decay * ageHours);
+            float engagementScore = maxEngagement > 0 ? (float) (engagement[i] / maxEngagement) : 0f;
+            baseScores[i] = W_FRESHNESS * freshness + W_ENGAGEMENT * engagementScore;
+
+            Map<Integer, Float> weights = new HashMap<>(authorWeights.computeIfAbsent(authorId,
+                    id -> interestWeights(shadesByAuthor.getOrDefault(id, List.of()), dictionary::id)));
+            if (post.getTopic() != null) {
+                for (String token : CjkTokenizer.tokenize(post.getTopic())) {
+                    weights.merge(dictionary.id(token), TOPIC_WEIGHT, Float::sum);
+                }
+            }
+            vectors[i] = SparseVector.of(weights);
+        }
+        return new CandidateSnapshot(postIds, authorIds, baseScores, vectors, dictionary);
+    }
+
+    /**
+     * 浏览者的兴趣向量；快照中没有的词项与任何候选都不相交，直接跳过，不加入词典
+     */
+    public SparseVector interests(List<UserShade> shades) {
+        return SparseVector.of(interestWeights(shades, dictionary::find));
+    }
+
+    /**
+     * 兴趣标签 -> 词项权重：标签名按二元组分词，权重为置信度
+     * @param termIds 词项 -> id，返回负数的词项跳过
+     */
+    static Map<Integer, Float> interestWeights(List<UserShade> shades, ToIntFunction<String> termIds) {
+        Map<Integer, Float> weights = new HashMap<>();
+        for (UserShade shade : shades) {
+            if (shade.getShadeName() == null) {
+                continue;
+            }
+            float weight = UserService.confidenceWeight(shade.getConfidenceLevel());
+            for (String token : CjkTokenizer.tokenize(shade.getShadeName())) {
+                int id = termIds.applyAsInt(token);
+                if (id >= 0) {
+                    weights.merge(id, weight, Float::sum);
+                }
+            }
+        }
+        return weights;
+    }
+
+    private static long toMillis(Post post) {
+        return post.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public int size() {
+        return postIds.length;
+    }
+
+    int termCount() {
+        return dictionary.size();
+    }
+
+    /**
+     * 词项 -> 整数 id，只在构建快照时写入，发布后只读
+     */
+    private static final class TermDictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        int id(String term) {
+            return ids.computeIfAbsent(term, t -> ids.size());
+        }
+
+        int find(String term) {
+            return ids.getOrDefault(term, -1);
+        }
+
+        int size() {
+            return ids.size();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.molkbook.feed;
+
+import com.molkbook.entity.Post;
+import com.molkbook.entity.UserShade;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserShadeRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "为你推荐" 排序
+ * 候选集为最近和最热的帖子，定时从数据库刷新为内存快照；
+ * 请求时只查一次当前用户的兴趣标签，与每个候选的稀疏向量做余弦相似度，再叠加新鲜度和互动分
+ */
+@Component
+@Slf4j
+public class ForYouRanker {
+
+    private static final int SHADE_QUERY_BATCH = 1000;
+
+    private final PostRepository postRepository;
+    private final UserShadeRepository userShadeRepository;
+    private final int recentSize;
+    private final int hotSize;
+    private final double halfLifeHours;
+    private final Timer rankTimer;
+
+    private volatile CandidateSnapshot snapshot;
+
+    public ForYouRanker(PostRepository postRepository,
+                        UserShadeRepository userShadeRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${feed.foryou.recent-size:2000}") int recentSize,
+                        @Value("${feed.foryou.hot-size:1000}") int hotSize,
+                        @Value("${feed.foryou.freshness-half-life-hours:24}") double halfLifeHours) {
+        this.postRepository = postRepository;
+        this.userShadeRepository = userShadeRepository;
+        this.recentSize = recentSize;
+        this.hotSize = hotSize;
+        this.halfLifeHours = halfLifeHours;
+        this.rankTimer = Timer.builder("molkbook.feed.foryou.rank")
+                .description("In-memory scoring and sorting of for-you candidates")
+                .register(meterRegistry);
+        Gauge.builder("molkbook.feed.foryou.candidates", this, ranker -> ranker.snapshot != null ? ranker.snapshot.size() : 0)
+                .description("Posts in the for-you candidate window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 重新加载候选集：最近 recentSize 条 + 最热 hotSize 条，作者兴趣标签批量查询
+     */
+    @Scheduled(fixedDelayString = "#{${feed.foryou.refresh-seconds:60} * 1000}",
+            initialDelayString = "#{${feed.foryou.refresh-seconds:60} * 1000}")
+    public void refresh() {
+        long start = System.currentTimeMillis();
+
+        Map<Long, Post> candidates = new LinkedHashMap<>();
+        for (Post post : postRepository.findRecentPosts(PageRequest.of(0, recentSize))) {
+            candidates.put(post.getId(), post);
+        }
+        for (Post post : postRepository.findAllByHotness(PageRequest.of(0, hotSize))) {
+            candidates.putIfAbsent(post.getId(), post);
+        }
+
+        Set<Long> authorIdSet = new LinkedHashSet<>();
+        for (Post post : candidates.values()) {
+            authorIdSet.add(post.getUser().getId());
+        }
+        List<Long> authorIds = new ArrayList<>(authorIdSet);
+        Map<Long, List<UserShade>> shadesByAuthor = new HashMap<>();
+        for (int i = 0; i < authorIds.size(); i += SHADE_QUERY_BATCH) {
+            List<Long> batch = authorIds.subList(i, Math.min(authorIds.size(), i + SHADE_QUERY_BATCH));
+            for (UserShade shade : userShadeRepository.findByUserIdIn(batch)) {
+                shadesByAuthor.computeIfAbsent(shade.getUser().getId(), id -> new ArrayList<>()).add(shade);
+            }
+        }
+
+        snapshot = CandidateSnapshot.build(new ArrayList<>(candidates.values()), shadesByAuthor,
+                halfLifeHours, System.currentTimeMillis());
+        log.debug("For-you candidates refreshed: {} posts from {} authors in {}ms",
+                candidates.size(), authorIds.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 为当前用户排序并返回指定区间的帖子 id，不包含用户自己的帖子
+     * @param userId 未登录时为 null，只按新鲜度和互动排序
+     */
+    public RankedPage rank(Long userId, int offset, int limit) {
+        CandidateSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+        }
+
+        SparseVector interests = userId != null
+                ? current.interests(userShadeRepository.findByUserId(userId))
+                : SparseVector.EMPTY;
+
+        long start = System.nanoTime();
+        RankedPage page = rank(current, interests, userId != null ? userId : -1L, offset, limit);
+        rankTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return page;
+    }
+
+    /**
+     * 得分（非负 float 的位模式与数值同序）放在高 32 位、候选下标放在低 32 位，
+     * 对 long[] 排序即可完成按分数排序，不需要装箱或比较器
+     */
+    static RankedPage rank(CandidateSnapshot snapshot, SparseVector interests, long excludeAuthorId, int offset, int limit) {
+        int n = snapshot.size();
+        long[] packed = new long[n];
+        int count = 0;
+        boolean personalized = !interests.isEmpty();
+        for (int i = 0; i < n; i++) {
+            if (snapshot.authorIds[i] == excludeAuthorId) {
+                continue;
+            }
+            float score = snapshot.baseScores[i];
+            if (personalized) {
+                score += CandidateSnapshot.W_SIMILARITY * interests.dot(snapshot.vectors[i]);
+            }
+            packed[count++] = ((long) Float.floatToIntBits(score) << 32) | i;
+        }
+        Arrays.sort(packed, 0, count);
+
+        if (offset >= count) {
+            return new RankedPage(Collections.emptyList(), count);
+        }
+        int end = Math.min(count, offset + limit);
+        List<Long> ids = new ArrayList<>(end - offset);
+        // 升序排列，从末尾向前取得分最高的
+        for (int rank = offset; rank < end; rank++) {
+            int index = (int) packed[count - 1 - rank];
+            ids.add(snapshot.postIds[index]);
+        }
+        return new RankedPage(ids, count);
+    }
+
+    public static final class RankedPage {
+        public final List<Long> postIds;
+        public final int total;
+
+        RankedPage(List<Long> postIds, int total) {
+            this.postIds = postIds;
+            this.total = total;
+        }
+    }
+}
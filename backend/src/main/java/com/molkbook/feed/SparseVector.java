@@ -0,0 +1,77 @@
+package com.molkbook.feed;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * L2 归一化的稀疏向量，词项 id 升序存储
+ * 两个归一化向量的点积即余弦相似度，按归并方式计算，不分配内存
+ */
+public final class SparseVector {
+
+    public static final SparseVector EMPTY = new SparseVector(new int[0], new float[0]);
+
+    private final int[] terms;
+    private final float[] weights;
+
+    private SparseVector(int[] terms, float[] weights) {
+        this.terms = terms;
+        this.weights = weights;
+    }
+
+    /**
+     * 由 词项 id -> 权重 构建并归一化
+     */
+    public static SparseVector of(Map<Integer, Float> termWeights) {
+        if (termWeights.isEmpty()) {
+            return EMPTY;
+        }
+        int[] terms = new int[termWeights.size()];
+        int i = 0;
+        for (Integer term : termWeights.keySet()) {
+            terms[i++] = term;
+        }
+        Arrays.sort(terms);
+
+        float[] weights = new float[terms.length];
+        double norm = 0;
+        for (i = 0; i < terms.length; i++) {
+            weights[i] = termWeights.get(terms[i]);
+            norm += weights[i] * weights[i];
+        }
+        if (norm == 0) {
+            return EMPTY;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (i = 0; i < weights.length; i++) {
+            weights[i] *= scale;
+        }
+        return new SparseVector(terms, weights);
+    }
+
+    public float dot(SparseVector other) {
+        int[] a = terms;
+        int[] b = other.terms;
+        int i = 0;
+        int j = 0;
+        float sum = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                sum += weights[i++] * other.weights[j++];
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return sum;
+    }
+
+    public boolean isEmpty() {
+        return terms.length == 0;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+}
@@ -0,0 +1,49 @@
+package com.molkbook.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 进程内缓存的命中统计
+ * 导出 molkbook.cache.requests{cache,result}、molkbook.cache.size 和 molkbook.cache.hit.ratio
+ */
+public final class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    /**
+     * Caffeine 缓存，需要以 recordStats() 构建
+     */
+    public static void register(MeterRegistry registry, String cache, Cache<?, ?> caffeine) {
+        register(registry, cache, caffeine,
+                c -> c.stats().hitCount(), c -> c.stats().missCount(), Cache::estimatedSize);
+    }
+
+    public static <T> void register(MeterRegistry registry, String cache, T target,
+                                    ToDoubleFunction<T> hits, ToDoubleFunction<T> misses,
+                                    ToDoubleFunction<T> size) {
+        FunctionCounter.builder("molkbook.cache.requests", target, hits)
+                .tag("cache", cache)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("molkbook.cache.requests", target, misses)
+                .tag("cache", cache)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("molkbook.cache.size", target, size)
+                .tag("cache", cache)
+                .register(registry);
+        Gauge.builder("molkbook.cache.hit.ratio", target, t -> {
+                    double h = hits.applyAsDouble(t);
+                    double total = h + misses.applyAsDouble(t);
+                    return total > 0 ? h / total : 0;
+                })
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.molkbook.metrics;
+
+import com.molkbook.config.JwtUtil;
+import com.molkbook.search.SearchIndex;
+import com.molkbook.service.IdempotencyService;
+import com.molkbook.service.LikedPostCache;
+import com.molkbook.service.PostJsonCache;
+import com.molkbook.service.TopicFeedCache;
+import com.molkbook.service.UserCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.ToLongFunction;
+
+/**
+ * 指标配置
+ * HTTP 延迟直方图（http.server.requests）和 Hikari 连接池指标（hikaricp.connections.*）由 Actuator 自动导出
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(JwtUtil jwtUtil, UserCache userCache, TopicFeedCache topicFeedCache,
+                                    LikedPostCache likedPostCache, PostJsonCache postJsonCache,
+                                    IdempotencyService idempotencyService) {
+        return registry -> {
+            CacheMetrics.register(registry, "jwt", jwtUtil.getCache());
+            CacheMetrics.register(registry, "user", userCache.getCache());
+            CacheMetrics.register(registry, "topic-feed", topicFeedCache.getCache());
+            CacheMetrics.register(registry, "liked-posts", likedPostCache.getCache());
+            CacheMetrics.register(registry, "post-json", postJsonCache.getCache());
+            // 命中即重试复用了已有的生成结果
+            CacheMetrics.register(registry, "idempotency", idempotencyService.getCache());
+        };
+    }
+
+    /**
+     * Hibernate 二级缓存各区域的命中统计，cache 标签为区域名（见 ehcache.xml）
+     * 查询缓存区域在第一次使用时才创建，统计每次读取时重新查找
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : new String[]{"user-entity", "user-shade-entity", "user-query"}) {
+                CacheMetrics.register(registry, region, statistics,
+                        s -> regionStat(s, region, CacheRegionStatistics::getHitCount),
+                        s -> regionStat(s, region, CacheRegionStatistics::getMissCount),
+                        s -> regionStat(s, region, CacheRegionStatistics::getElementCountInMemory));
+            }
+        };
+    }
+
+    private static double regionStat(Statistics statistics, String region, ToLongFunction<CacheRegionStatistics> stat) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        if (regionStatistics == null) {
+            return 0;
+        }
+        // JCache 区域不提供条目数，返回负数，此时导出 NaN
+        long value = stat.applyAsLong(regionStatistics);
+        return value >= 0 ? value : Double.NaN;
+    }
+
+    @Bean
+    public MeterBinder searchIndexMetrics(SearchIndex searchIndex) {
+        return registry -> {
+            Gauge.builder("molkbook.search.index.documents", searchIndex, SearchIndex::getDocumentCount)
+                    .description("Documents in the in-memory search index")
+                    .register(registry);
+            Gauge.builder("molkbook.search.index.terms", searchIndex, SearchIndex::getTermCount)
+                    .description("Distinct terms in the in-memory search index")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.molkbook.metrics;
+
+import com.molkbook.config.Bulkhead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SecondMe API 调用指标
+ * 按接口和隔离舱统计完整响应耗时（包括流式响应读完为止）、错误数和响应字节数
+ */
+@Component
+public class SecondMeMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public SecondMeMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * WebClient 过滤器，需要注册在错误处理过滤器之前（外层）
+     * @param bulkhead WebClient 所属的隔离舱，作为 bulkhead 标签
+     */
+    public ExchangeFilterFunction filter(Bulkhead bulkhead) {
+        String bulkheadTag = bulkhead.tag();
+        return (request, next) -> {
+            String endpoint = endpointOf(request.url());
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            AtomicLong bytes = new AtomicLong();
+
+            return next.exchange(request)
+                    .doOnError(e -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            record(endpoint, bulkheadTag, start, "error", bytes.get());
+                        }
+                    })
+                    .map(response -> response.mutate()
+                            .body(body -> body
+                                    .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                                    .doOnComplete(() -> {
+                                        if (recorded.compareAndSet(false, true)) {
+                                            record(endpoint, bulkheadTag, start, "success", bytes.get());
+                                        }
+                                    })
+                                    .doOnError(e -> {
+                                        if (recorded.compareAndSet(false, true)) {
+                                            record(endpoint, bulkheadTag, start, "error", bytes.get());
+                                        }
+                                    })
+                                    .doOnCancel(() -> {
+                                        if (recorded.compareAndSet(false, true)) {
+                                            record(endpoint, bulkheadTag, start, "cancelled", bytes.get());
+                                        }
+                                    }))
+                            .build());
+        };
+    }
+
+    private void record(String endpoint, String bulkhead, long startNanos, String outcome, long bytes) {
+        Timer.builder("molkbook.secondme.requests")
+                .description("SecondMe API call latency until the response body is fully read")
+                .tag("endpoint", endpoint)
+                .tag("bulkhead", bulkhead)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("molkbook.secondme.response.bytes")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .tag("bulkhead", bulkhead)
+                .register(meterRegistry)
+                .record(bytes);
+        if ("error".equals(outcome)) {
+            Counter.builder("molkbook.secondme.errors")
+                    .tag("endpoint", endpoint)
+                    .tag("bulkhead", bulkhead)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * 从请求路径提取固定的接口名，避免把 Token 等参数带进标签
+     */
+    static String endpointOf(URI url) {
+        String path = url.getPath();
+        if (path.endsWith("/oauth/token/code")) {
+            return "oauth/token";
+        }
+        if (path.endsWith("/user/info")) {
+            return "user/info";
+        }
+        if (path.endsWith("/user/shades")) {
+            return "user/shades";
+        }
+        if (path.endsWith("/chat/stream")) {
+            return "chat/stream";
+        }
+        return "other";
+    }
+}
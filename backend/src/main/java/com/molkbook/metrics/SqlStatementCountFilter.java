@@ -0,0 +1,126 @@
+package com.molkbook.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * 统计每个 HTTP 请求执行的 SQL 语句数
+ * - 记录 molkbook.http.sql.statements 指标
+ * - 超过阈值或同一语句重复执行过多（疑似 N+1）时输出警告日志
+ * - 非生产环境可通过 X-SQL-Statement-Count 响应头查看
+ */
+@Component
+@Slf4j
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-SQL-Statement-Count";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headerEnabled;
+    private final int warnThreshold;
+    private final int repeatThreshold;
+
+    public SqlStatementCountFilter(MeterRegistry meterRegistry,
+                                   @Value("${sql-count.header-enabled:false}") boolean headerEnabled,
+                                   @Value("${sql-count.warn-threshold:20}") int warnThreshold,
+                                   @Value("${sql-count.repeat-threshold:10}") int repeatThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.headerEnabled = headerEnabled;
+        this.warnThreshold = warnThreshold;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open(repeatThreshold > 0)) {
+            try {
+                filterChain.doFilter(request, headerEnabled ? new CountHeaderResponse(response, scope) : response);
+            } finally {
+                if (headerEnabled && !response.isCommitted()) {
+                    response.setHeader(HEADER, String.valueOf(scope.count()));
+                }
+                report(request, scope);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatementCounter.Scope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        int count = scope.count();
+
+        DistributionSummary.builder("molkbook.http.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .serviceLevelObjectives(1, 2, 3, 5, 10, 20, 50, 100)
+                .register(meterRegistry)
+                .record(count);
+
+        if (warnThreshold > 0 && count > warnThreshold) {
+            log.warn("{} {} executed {} SQL statements (threshold {})",
+                    request.getMethod(), request.getRequestURI(), count, warnThreshold);
+        }
+
+        if (repeatThreshold > 0) {
+            Map.Entry<String, Integer> repeated = scope.mostRepeated();
+            if (repeated != null && repeated.getValue() >= repeatThreshold) {
+                log.warn("Possible N+1 in {} {}: statement executed {} times: {}",
+                        request.getMethod(), request.getRequestURI(), repeated.getValue(), repeated.getKey());
+            }
+        }
+    }
+
+    /**
+     * 在响应体开始写出（提交）之前补上计数头，此时控制器和 DTO 映射已经完成
+     */
+    private static final class CountHeaderResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementCounter.Scope scope;
+
+        private CountHeaderResponse(HttpServletResponse response, SqlStatementCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        private void addCountHeader() {
+            if (!isCommitted()) {
+                setHeader(HEADER, String.valueOf(scope.count()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addCountHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addCountHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addCountHeader();
+            super.flushBuffer();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.molkbook.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 统计当前线程执行的 SQL 语句数
+ * 作为 Hibernate StatementInspector 注册，计数范围由 {@link #open()} 返回的 Scope 划定。
+ * Scope 可以嵌套，外层 Scope 同样会统计内层执行的语句，因此也可以在测试中使用：
+ * <pre>
+ * try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+ *     mockMvc.perform(get("/api/posts?size=20"));
+ *     scope.assertAtMost(5);
+ * }
+ * </pre>
+ * 计数只覆盖打开 Scope 的线程：交给 GenerationExecutor、@Async 方法或定时任务线程执行的语句不会计入，
+ * 这些路径的语句数需要在各自的线程中单独统计（见 PostFeedSqlStatementTest）
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * 在当前线程开始一个计数范围
+     */
+    public static Scope open() {
+        return open(true);
+    }
+
+    /**
+     * 在当前线程开始一个计数范围
+     * @param trackStatements 是否按语句文本统计执行次数（用于发现 N+1 查询）
+     */
+    public static Scope open(boolean trackStatements) {
+        Scope scope = new Scope(CURRENT.get(), trackStatements);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Integer> statements;
+        private int count;
+        private boolean closed;
+
+        private Scope(Scope parent, boolean trackStatements) {
+            this.parent = parent;
+            this.statements = trackStatements ? new HashMap<>() : null;
+        }
+
+        private void record(String sql) {
+            count++;
+            if (statements != null) {
+                statements.merge(sql, 1, Integer::sum);
+            }
+        }
+
+        /**
+         * 已执行的语句数
+         */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * 各语句的执行次数，未开启统计时为空
+         */
+        public Map<String, Integer> statements() {
+            return statements != null ? Collections.unmodifiableMap(statements) : Collections.emptyMap();
+        }
+
+        /**
+         * 执行次数最多的语句，没有语句时返回 null
+         */
+        public Map.Entry<String, Integer> mostRepeated() {
+            if (statements == null) {
+                return null;
+            }
+            Map.Entry<String, Integer> max = null;
+            for (Map.Entry<String, Integer> entry : statements.entrySet()) {
+                if (max == null || entry.getValue() > max.getValue()) {
+                    max = entry;
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 断言语句数不超过 max，供集成测试使用
+         */
+        public void assertAtMost(int max) {
+            if (count <= max) {
+                return;
+            }
+            StringBuilder message = new StringBuilder()
+                    .append("Expected at most ").append(max)
+                    .append(" SQL statements but ").append(count).append(" were executed");
+            statements().forEach((sql, times) ->
+                    message.append("\n  ").append(times).append(" x ").append(sql));
+            throw new AssertionError(message.toString());
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
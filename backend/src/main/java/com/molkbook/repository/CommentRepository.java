@@ -4,9 +4,13 @@ import com.molkbook.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
@@ -15,15 +19,54 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     List<Comment> findByPostIdOrderByCreatedAtAsc(Long postId);
 
-    // 只获取顶级评论（没有父评论的）
-    List<Comment> findByPostIdAndParentIsNullOrderByCreatedAtAsc(Long postId);
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.id = :id")
+    Optional<Comment> findWithUserById(Long id);
 
+    // 只获取顶级评论（没有父评论的）
     Page<Comment> findByPostIdAndParentIsNullOrderByCreatedAtAsc(Long postId, Pageable pageable);
 
-    // 获取某个评论的回复
-    List<Comment> findByParentIdOrderByCreatedAtAsc(Long parentId);
+    // 评论线程（顶级评论）按时间正序 keyset 分页
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.post.id = :postId AND c.parent IS NULL " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findThreads(Long postId, Pageable pageable);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.post.id = :postId AND c.parent IS NULL " +
+            "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findThreadsAfter(Long postId, LocalDateTime createdAt, Long id, Pageable pageable);
+
+    // 子树（不含自身）按展示顺序，走 idx_root_path 范围扫描
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.rootId = :rootId " +
+            "AND c.path > :after AND c.path < :end ORDER BY c.path")
+    List<Comment> findSubtree(Long rootId, String after, String end, Pageable pageable);
+
+    // 每个线程按展示顺序的前 limit 条回复，一次查询取回所有线程的预览
+    @Query(value = "SELECT * FROM (SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.root_id ORDER BY c.path) AS rn " +
+            "FROM comments c WHERE c.root_id IN (:rootIds) AND c.depth > 0) ranked " +
+            "WHERE ranked.rn <= :limit ORDER BY ranked.path",
+            nativeQuery = true)
+    List<Comment> findThreadPreviews(List<Long> rootIds, int limit);
+
+    // 线程内的回复总数：[rootId, count]
+    @Query("SELECT c.rootId, COUNT(c) FROM Comment c WHERE c.rootId IN :rootIds AND c.depth > 0 GROUP BY c.rootId")
+    List<Object[]> countRepliesByRootIds(List<Long> rootIds);
+
+    // 启动时为旧数据补齐物化路径：先顶级评论，再逐层处理父评论已有路径的回复
+    @Query("SELECT c FROM Comment c WHERE c.path IS NULL AND c.parent IS NULL")
+    List<Comment> findRootsWithoutPath(Pageable pageable);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.parent p WHERE c.path IS NULL AND p.path IS NOT NULL")
+    List<Comment> findRepliesWithoutPath(Pageable pageable);
 
     long countByPostId(Long postId);
 
     long countByUserId(Long userId);
+
+    // 每个用户的评论数：[userId, count]，没有评论的用户不返回
+    @Query("SELECT c.user.id, COUNT(c) FROM Comment c WHERE c.user.id IN :userIds GROUP BY c.user.id")
+    List<Object[]> countByUserIds(Collection<Long> userIds);
+
+    // 搜索索引重建：按 id 分批读取内容
+    @Query("SELECT c.id, c.content FROM Comment c WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findIdAndContentAfter(Long afterId, Pageable pageable);
 }
@@ -0,0 +1,26 @@
+package com.molkbook.repository;
+
+import com.molkbook.entity.ContentVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ContentVersionRepository extends JpaRepository<ContentVersion, String> {
+
+    // 每次写入都使版本增大：取新版本戳和原版本 + 1 中较大的，时钟落后的实例写入的变化也能被轮询到
+    // 返回 0 表示行不存在
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContentVersion v SET v.version = GREATEST(v.version + 1, :version) WHERE v.contentKey = :contentKey")
+    int advance(@Param("contentKey") String contentKey, @Param("version") long version);
+
+    // 版本大于 since 的 [contentKey, version]，走 idx_version 索引
+    @Query("SELECT v.contentKey, v.version FROM ContentVersion v WHERE v.version > :since")
+    List<Object[]> findChangedSince(@Param("since") long since);
+}
@@ -3,15 +3,23 @@ package com.molkbook.repository;
 import com.molkbook.entity.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
 
+    // Feed 分页查询一并取出作者，避免逐个加载
+    @EntityGraph(attributePaths = "user")
     Page<Post> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
     Page<Post> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
@@ -19,21 +27,67 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @Query("SELECT p FROM Post p WHERE p.topic = :topic ORDER BY p.createdAt DESC")
     Page<Post> findByTopic(String topic, Pageable pageable);
 
+    @Query("SELECT p FROM Post p JOIN FETCH p.user WHERE p.id IN :ids")
+    List<Post> findAllWithUserByIdIn(Collection<Long> ids);
+
+    // 话题 Feed keyset 分页，走 idx_topic_created_at 索引
+    @Query("SELECT p FROM Post p JOIN FETCH p.user WHERE p.topic = :topic ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findTopicFeed(String topic, Pageable pageable);
+
+    @Query("SELECT p FROM Post p JOIN FETCH p.user WHERE p.topic = :topic " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findTopicFeedAfter(String topic, LocalDateTime createdAt, Long id, Pageable pageable);
+
+    // AI 生成在独立线程中执行，作者需要预先加载
+    @Query("SELECT p FROM Post p JOIN FETCH p.user WHERE p.id = :id")
+    Optional<Post> findWithUserById(Long id);
+
     @Query("SELECT p FROM Post p LEFT JOIN FETCH p.comments WHERE p.id = :postId")
     Post findByIdWithComments(Long postId);
 
-    @Query("SELECT p FROM Post p ORDER BY p.createdAt DESC")
+    // 后台生成任务在会话之外使用作者信息，需要预先加载
+    @Query("SELECT p FROM Post p JOIN FETCH p.user ORDER BY p.createdAt DESC")
     List<Post> findRecentPosts(Pageable pageable);
 
     long countByUserId(Long userId);
 
+    // 每个用户的发帖数：[userId, count]，没有帖子的用户不返回
+    @Query("SELECT p.user.id, COUNT(p) FROM Post p WHERE p.user.id IN :userIds GROUP BY p.user.id")
+    List<Object[]> countByUserIds(Collection<Long> userIds);
+
+    // 原子地增加评论数，不读取也不写回帖子实体
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Post p SET p.commentCount = COALESCE(p.commentCount, 0) + 1 WHERE p.id = :postId")
+    int incrementCommentCount(@Param("postId") Long postId);
+
+    // 原子地增加 / 减少点赞数，不读取也不写回帖子实体
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Post p SET p.likeCount = COALESCE(p.likeCount, 0) + 1 WHERE p.id = :postId")
+    int incrementLikeCount(@Param("postId") Long postId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Post p SET p.likeCount = GREATEST(COALESCE(p.likeCount, 0) - 1, 0) WHERE p.id = :postId")
+    int decrementLikeCount(@Param("postId") Long postId);
+
+    // 当前的 [likeCount, commentCount]
+    @Query("SELECT p.likeCount, p.commentCount FROM Post p WHERE p.id = :postId")
+    List<Object[]> findCountersById(@Param("postId") Long postId);
+
     // 按点赞数排序
+    @EntityGraph(attributePaths = "user")
     Page<Post> findAllByOrderByLikeCountDesc(Pageable pageable);
 
     // 按评论数排序
+    @EntityGraph(attributePaths = "user")
     Page<Post> findAllByOrderByCommentCountDesc(Pageable pageable);
 
     // 综合热度排序（点赞数 + 评论数）
     @Query("SELECT p FROM Post p ORDER BY (p.likeCount + p.commentCount) DESC, p.createdAt DESC")
+    @EntityGraph(attributePaths = "user")
     Page<Post> findAllByHotness(Pageable pageable);
+
+    // 搜索索引重建：按 id 分批读取内容
+    @Query("SELECT p.id, p.content FROM Post p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findIdAndContentAfter(Long afterId, Pageable pageable);
 }
@@ -3,16 +3,23 @@ package com.molkbook.repository;
 import com.molkbook.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    // 登录时按 Token 查用户，结果放入查询缓存，users 表有写入时自动失效
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = "user-query")})
     Optional<User> findBySecondmeToken(String secondmeToken);
 
     @Query(value = "SELECT * FROM users WHERE id != :excludeUserId ORDER BY RAND()", nativeQuery = true)
@@ -2,14 +2,25 @@ package com.molkbook.repository;
 
 import com.molkbook.entity.UserShade;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 @Repository
 public interface UserShadeRepository extends JpaRepository<UserShade, Long> {
 
+    // 查询缓存只保存 id 列表，实体从 user-shade-entity 区域读取；user_shades 表有写入时自动失效
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = "user-query")})
     List<UserShade> findByUserId(Long userId);
 
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = "user-query")})
+    List<UserShade> findByUserIdIn(Collection<Long> userIds);
+
     void deleteByUserId(Long userId);
 }
@@ -1,10 +1,14 @@
 package com.molkbook.scheduler;
 
+import com.molkbook.config.Bulkhead;
 import com.molkbook.entity.Post;
 import com.molkbook.entity.User;
 import com.molkbook.service.CommentService;
+import com.molkbook.service.GenerationExecutor;
 import com.molkbook.service.PostService;
 import com.molkbook.service.UserService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,9 +16,11 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -22,14 +28,23 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class AIContentScheduler {
 
+    // 用户发起的生成在排队时，后台生成任务每次推迟的秒数和最多推迟次数
+    private static final int DEFER_SECONDS = 10;
+    private static final int MAX_DEFERRALS = 6;
+
     private final UserService userService;
     private final PostService postService;
     private final CommentService commentService;
+    private final MeterRegistry meterRegistry;
+    private final GenerationExecutor generationExecutor;
     private final Random random = new Random();
 
-    // 使用 ScheduledExecutorService 替代 Thread.sleep
-    private final java.util.concurrent.ScheduledExecutorService scheduler =
-            java.util.concurrent.Executors.newScheduledThreadPool(2);
+    // 使用 ScheduledExecutorService 替代 Thread.sleep；线程属于后台隔离舱，使用独立的 SecondMe 和数据库连接池
+    private final ScheduledThreadPoolExecutor scheduler =
+            new ScheduledThreadPoolExecutor(2, Bulkhead.BACKGROUND.threadFactory("background-generation-"));
+
+    @Value("${scheduler.threads:2}")
+    private int threads;
 
     @Value("${scheduler.post-generation.enabled:true}")
     private boolean postGenerationEnabled;
@@ -40,6 +55,58 @@ public class AIContentScheduler {
     @Value("${scheduler.like-generation.enabled:true}")
     private boolean likeGenerationEnabled;
 
+    @PostConstruct
+    public void init() {
+        scheduler.setCorePoolSize(threads);
+        Gauge.builder("molkbook.generation.queue.depth", scheduler, executor -> executor.getQueue().size())
+                .description("Delayed generation tasks waiting in the scheduler")
+                .register(meterRegistry);
+        Gauge.builder("molkbook.generation.active", scheduler, ScheduledThreadPoolExecutor::getActiveCount)
+                .description("Background generation threads currently running a task")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录生成任务结果
+     * @param type post, comment, like
+     * @param outcome success, failure, skipped, deferred
+     */
+    private void recordGeneration(String type, String outcome) {
+        meterRegistry.counter("molkbook.generation", "type", type, "outcome", outcome).increment();
+    }
+
+    /**
+     * 定时任务的查询和调度在后台隔离舱的线程上执行，使用后台数据库连接池，不占用共享的定时任务线程
+     */
+    private void runInBackground(String type, Runnable job) {
+        scheduler.execute(() -> {
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                log.error("Scheduled {} generation failed", type, e);
+            }
+        });
+    }
+
+    /**
+     * 延迟执行 AI 生成任务；到期时如果用户发起的生成正在排队，先让出 SecondMe 配额，推迟后再执行
+     * 最多推迟 MAX_DEFERRALS 次，之后照常执行（后台任务有自己的连接池，不会挤占用户请求）
+     */
+    private void scheduleGeneration(String type, Runnable task, long delaySeconds) {
+        scheduleGeneration(type, task, delaySeconds, 0);
+    }
+
+    private void scheduleGeneration(String type, Runnable task, long delaySeconds, int deferrals) {
+        scheduler.schedule(() -> {
+            if (deferrals < MAX_DEFERRALS && generationExecutor.isSaturated()) {
+                recordGeneration(type, "deferred");
+                scheduleGeneration(type, task, DEFER_SECONDS, deferrals + 1);
+                return;
+            }
+            task.run();
+        }, delaySeconds, TimeUnit.SECONDS);
+    }
+
     /**
      * 定时为活跃用户生成帖子
      * 每小时执行一次，随机 20% 的用户会发帖
@@ -52,7 +119,10 @@ public class AIContentScheduler {
         }
 
         log.info("Starting scheduled post generation...");
+        runInBackground("post", this::planPostGeneration);
+    }
 
+    private void planPostGeneration() {
         List<User> activeUsers = userService.findActiveUsers();
         if (activeUsers.isEmpty()) {
             log.info("No active users found for post generation");
@@ -71,16 +141,20 @@ public class AIContentScheduler {
             final User user = selectedUsers.get(i);
             final int delaySeconds = i * 10; // 每个用户间隔 10 秒，避免同时请求 API
 
-            scheduler.schedule(() -> {
+            scheduleGeneration("post", () -> {
                 try {
                     Post post = postService.generatePost(user);
                     if (post != null) {
                         log.info("Generated post {} for user {}", post.getId(), user.getId());
+                        recordGeneration("post", "success");
+                    } else {
+                        recordGeneration("post", "failure");
                     }
                 } catch (Exception e) {
                     log.error("Error generating post for user {}", user.getId(), e);
+                    recordGeneration("post", "failure");
                 }
-            }, delaySeconds, TimeUnit.SECONDS);
+            }, delaySeconds);
         }
     }
 
@@ -96,7 +170,10 @@ public class AIContentScheduler {
         }
 
         log.info("Starting scheduled like generation...");
+        runInBackground("like", this::planLikeGeneration);
+    }
 
+    private void planLikeGeneration() {
         // 获取最近的帖子
         List<Post> recentPosts = postService.getRecentPosts(10);
         if (recentPosts.isEmpty()) {
@@ -123,7 +200,10 @@ public class AIContentScheduler {
         }
 
         log.info("Starting scheduled comment generation...");
+        runInBackground("comment", this::planCommentGeneration);
+    }
 
+    private void planCommentGeneration() {
         // 获取最近的帖子
         List<Post> recentPosts = postService.getRecentPosts(20);
         if (recentPosts.isEmpty()) {
@@ -166,14 +246,19 @@ public class AIContentScheduler {
             final int delaySeconds = taskIndex * 10; // 间隔 10 秒
             taskIndex++;
 
-            scheduler.schedule(() -> {
+            scheduleGeneration("comment", () -> {
                 try {
-                    commentService.generateComment(targetPost, user);
-                    log.info("Generated comment for post {} by user {}", targetPost.getId(), user.getId());
+                    if (commentService.generateComment(targetPost, user) != null) {
+                        log.info("Generated comment for post {} by user {}", targetPost.getId(), user.getId());
+                        recordGeneration("comment", "success");
+                    } else {
+                        recordGeneration("comment", "failure");
+                    }
                 } catch (Exception e) {
                     log.error("Error generating comment for post {} by user {}", targetPost.getId(), user.getId(), e);
+                    recordGeneration("comment", "failure");
                 }
-            }, delaySeconds, TimeUnit.SECONDS);
+            }, delaySeconds);
         }
     }
 
@@ -206,9 +291,13 @@ public class AIContentScheduler {
                         boolean success = postService.likePost(post.getId(), liker);
                         if (success) {
                             log.info("AI auto-liked post {} by user {}", post.getId(), liker.getId());
+                            recordGeneration("like", "success");
+                        } else {
+                            recordGeneration("like", "skipped");
                         }
                     } catch (Exception e) {
                         log.error("Error auto-liking post {} by user {}", post.getId(), liker.getId(), e);
+                        recordGeneration("like", "failure");
                     }
                 }, delaySeconds, TimeUnit.SECONDS);
             }
@@ -234,14 +323,19 @@ public class AIContentScheduler {
             final int delaySeconds = (i + 1) * (random.nextInt(5) + 1);
 
             // 使用 ScheduledExecutorService 异步延迟执行，不阻塞调度线程
-            scheduler.schedule(() -> {
+            scheduleGeneration("comment", () -> {
                 try {
-                    commentService.generateComment(post, commenter);
-                    log.info("Generated comment for post {} by user {}", post.getId(), commenter.getId());
+                    if (commentService.generateComment(post, commenter) != null) {
+                        log.info("Generated comment for post {} by user {}", post.getId(), commenter.getId());
+                        recordGeneration("comment", "success");
+                    } else {
+                        recordGeneration("comment", "failure");
+                    }
                 } catch (Exception e) {
                     log.error("Error generating comment for post {} by user {}", post.getId(), commenter.getId(), e);
+                    recordGeneration("comment", "failure");
                 }
-            }, delaySeconds, TimeUnit.SECONDS);
+            }, delaySeconds);
         }
     }
 
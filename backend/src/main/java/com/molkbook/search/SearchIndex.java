@@ -0,0 +1,192 @@
+package com.molkbook.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 帖子和评论内容的内存倒排索引，按 BM25 打分
+ * 文档键为 (id << 1) | 类型位，帖子和评论共用一套词项统计
+ */
+@Component
+public class SearchIndex {
+
+    public enum DocType {
+        POST,
+        COMMENT
+    }
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docLengths = new HashMap<>();
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void addPost(Long postId, String content) {
+        add(DocType.POST, postId, content);
+    }
+
+    public void addComment(Long commentId, String content) {
+        add(DocType.COMMENT, commentId, content);
+    }
+
+    /**
+     * 添加文档，已索引的文档直接忽略（启动重建和增量更新可能重叠）
+     */
+    public void add(DocType type, Long id, String content) {
+        if (id == null) {
+            return;
+        }
+        long docKey = docKey(type, id);
+
+        // 分词在锁外完成
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        List<String> tokens = CjkTokenizer.tokenize(content);
+        for (String token : tokens) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (docLengths.putIfAbsent(docKey, tokens.size()) != null) {
+                return;
+            }
+            totalLength += tokens.size();
+            termFrequencies.forEach((term, tf) -> postings.computeIfAbsent(term, k -> new Postings()).add(docKey, tf));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * BM25 检索
+     * @param type 只返回该类型的文档，null 表示全部
+     */
+    public SearchResult search(String query, DocType type, int offset, int limit) {
+        LinkedHashSet<String> terms = new LinkedHashSet<>(CjkTokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return new SearchResult(0, List.of());
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int docCount = docLengths.size();
+            if (docCount == 0) {
+                return new SearchResult(0, List.of());
+            }
+            double avgLength = (double) totalLength / docCount;
+
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    long docKey = list.docs[i];
+                    if (type != null && typeOf(docKey) != type) {
+                        continue;
+                    }
+                    int tf = list.frequencies[i];
+                    int length = docLengths.get(docKey);
+                    double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+                    scores.merge(docKey, score, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        // 分数相同时新内容（id 较大）在前
+        ranked.sort((a, b) -> {
+            int byScore = Double.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : Long.compare(b.getKey(), a.getKey());
+        });
+
+        List<Hit> hits = new ArrayList<>();
+        for (int i = offset; i < ranked.size() && hits.size() < limit; i++) {
+            Map.Entry<Long, Double> entry = ranked.get(i);
+            hits.add(new Hit(typeOf(entry.getKey()), entry.getKey() >>> 1, entry.getValue()));
+        }
+        return new SearchResult(ranked.size(), hits);
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return docLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long docKey(DocType type, long id) {
+        return (id << 1) | type.ordinal();
+    }
+
+    private static DocType typeOf(long docKey) {
+        return (docKey & 1) == 0 ? DocType.POST : DocType.COMMENT;
+    }
+
+    public static final class Hit {
+        public final DocType type;
+        public final long id;
+        public final double score;
+
+        private Hit(DocType type, long id, double score) {
+            this.type = type;
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    public static final class SearchResult {
+        public final int total;
+        public final List<Hit> hits;
+
+        private SearchResult(int total, List<Hit> hits) {
+            this.total = total;
+            this.hits = hits;
+        }
+    }
+
+    /**
+     * 单个词项的倒排列表，按添加顺序追加
+     */
+    private static final class Postings {
+        private long[] docs = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        private void add(long docKey, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = docKey;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+}
@@ -189,7 +189,7 @@ public class AIGenerationService {
     /**
      * 构建帖子生成的系统提示词
      */
-    private String buildPostGenerationSystemPrompt(SecondMeUserInfo userInfo, List<SecondMeShade> shades) {
+    String buildPostGenerationSystemPrompt(SecondMeUserInfo userInfo, List<SecondMeShade> shades) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("你是一个社交平台上的用户，正在分享自己的想法。请保持真实、有个性的表达风格。\n\n");
 
@@ -226,7 +226,7 @@ public class AIGenerationService {
     /**
      * 构建评论生成的系统提示词
      */
-    private String buildCommentGenerationSystemPrompt(SecondMeUserInfo userInfo, List<SecondMeShade> shades) {
+    String buildCommentGenerationSystemPrompt(SecondMeUserInfo userInfo, List<SecondMeShade> shades) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("你是一个社交平台上的用户，正在评论其他人的帖子。请保持真实、有个性的表达风格，积极友好地参与讨论。\n\n");
 
@@ -257,7 +257,7 @@ public class AIGenerationService {
     /**
      * 构建回复生成的系统提示词
      */
-    private String buildReplyGenerationSystemPrompt(SecondMeUserInfo userInfo, List<SecondMeShade> shades) {
+    String buildReplyGenerationSystemPrompt(SecondMeUserInfo userInfo, List<SecondMeShade> shades) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("你是一个社交平台上的用户，正在回复其他人的评论。请保持真实、有个性的表达风格，积极友好地参与讨论。\n\n");
 
@@ -0,0 +1,87 @@
+package com.molkbook.service;
+
+import com.molkbook.entity.Comment;
+
+/**
+ * 评论的物化路径：从线程根评论到自身，每一级是定长 base36 编码的评论 id
+ * 按 path 排序即为展示顺序（先序遍历，同级按创建顺序），
+ * 某条评论的子树是 (path, 下一个同级路径) 的范围，可以走 (root_id, path) 索引；
+ * 只用到 [0-9a-z]，上界不依赖符号字符在数据库排序规则中的位置
+ */
+public final class CommentPath {
+
+    static final int SEGMENT_LENGTH = 8;  // 36^8 ≈ 2.8 万亿个 id
+    // comments.path 为 VARCHAR(255)，最多 31 段；已到这个深度的评论不能再回复
+    static final int MAX_DEPTH = 30;
+
+    private CommentPath() {
+    }
+
+    /**
+     * 是否还能回复这条评论；尚未补齐路径的旧评论深度未知，按可以回复处理
+     */
+    public static boolean acceptsReplies(Comment comment) {
+        return comment.getDepth() == null || comment.getDepth() < MAX_DEPTH;
+    }
+
+    /**
+     * 根据已保存的评论 id 填充 rootId、depth 和 path
+     * 父评论还没有路径时（启动时的补齐尚未处理到它）先为父评论计算
+     */
+    public static void assign(Comment comment) {
+        Comment parent = comment.getParent();
+        if (parent == null) {
+            comment.setRootId(comment.getId());
+            comment.setDepth(0);
+            comment.setPath(segment(comment.getId()));
+            return;
+        }
+        if (parent.getPath() == null) {
+            assign(parent);
+        }
+        comment.setRootId(parent.getRootId());
+        if (parent.getDepth() < MAX_DEPTH) {
+            comment.setDepth(parent.getDepth() + 1);
+            comment.setPath(parent.getPath() + segment(comment.getId()));
+        } else {
+            // 新回复已由 acceptsReplies 拒绝，只有补齐超过深度的旧数据时会走到这里：挂到父评论的同级
+            String parentPrefix = parent.getPath().substring(0, parent.getPath().length() - SEGMENT_LENGTH);
+            comment.setDepth(parent.getDepth());
+            comment.setPath(parentPrefix + segment(comment.getId()));
+        }
+    }
+
+    /**
+     * 子树范围的上界（不含）：最后一段 id 加一，即紧随其后的同级路径
+     */
+    public static String subtreeEnd(String path) {
+        int lastSegment = path.length() - SEGMENT_LENGTH;
+        long id = Long.parseLong(path.substring(lastSegment), 36);
+        return path.substring(0, lastSegment) + segment(id + 1);
+    }
+
+    /**
+     * 游标必须是该子树内某条评论的路径
+     */
+    public static boolean isWithinSubtree(String path, String cursor) {
+        if (cursor.length() <= path.length() || cursor.length() % SEGMENT_LENGTH != 0 || !cursor.startsWith(path)) {
+            return false;
+        }
+        for (int i = 0; i < cursor.length(); i++) {
+            char c = cursor.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String segment(long id) {
+        String encoded = Long.toString(id, 36);
+        StringBuilder segment = new StringBuilder(SEGMENT_LENGTH);
+        for (int i = encoded.length(); i < SEGMENT_LENGTH; i++) {
+            segment.append('0');
+        }
+        return segment.append(encoded).toString();
+    }
+}
@@ -1,20 +1,35 @@
 package com.molkbook.service;
 
+import com.molkbook.config.TransactionHooks;
+import com.molkbook.datasource.ReadRouting;
 import com.molkbook.dto.CommentDTO;
+import com.molkbook.dto.CursorPageDTO;
+import com.molkbook.dto.FieldSelection;
+import com.molkbook.dto.UserDTO;
 import com.molkbook.entity.Comment;
 import com.molkbook.entity.Post;
 import com.molkbook.entity.User;
+import com.molkbook.event.FeedEventHub;
 import com.molkbook.repository.CommentRepository;
 import com.molkbook.repository.PostRepository;
-import javax.transaction.Transactional;
+import com.molkbook.search.SearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -27,22 +42,173 @@ public class CommentService {
     private final PostRepository postRepository;
     private final UserService userService;
     private final AIGenerationService aiGenerationService;
+    private final SearchIndex searchIndex;
+    private final ContentVersionTracker contentVersionTracker;
+    private final FeedEventHub feedEventHub;
+    private final ReadRouting readRouting;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int PREVIEW_THREADS = 10;  // 帖子详情中的评论线程数
+    private static final int PREVIEW_REPLIES = 3;   // 每个线程按展示顺序预览的回复数
 
     /**
-     * 获取帖子的评论（分页）- 只返回顶级评论，带嵌套回复
+     * 获取帖子的评论（分页）- 只返回顶级评论，每个线程带回复预览
      */
+    @Transactional(readOnly = true)
     public Page<CommentDTO> getCommentsByPostId(Long postId, int page, int size) {
+        return getCommentsByPostId(postId, page, size, FieldSelection.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<CommentDTO> getCommentsByPostId(Long postId, int page, int size, FieldSelection fields) {
         Pageable pageable = PageRequest.of(page, size);
         Page<Comment> comments = commentRepository.findByPostIdAndParentIsNullOrderByCreatedAtAsc(postId, pageable);
-        return comments.map(this::toDTOWithReplies);
+        return new PageImpl<>(toThreadPreviews(comments.getContent(), fields), pageable, comments.getTotalElements());
+    }
+
+    /**
+     * 帖子详情中的评论预览：前 PREVIEW_THREADS 个线程
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CommentDTO> getThreadPreview(Long postId) {
+        return getThreadPreview(postId, FieldSelection.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CommentDTO> getThreadPreview(Long postId, FieldSelection fields) {
+        return getThreads(postId, null, PREVIEW_THREADS, fields);
+    }
+
+    /**
+     * 获取评论线程（顶级评论按时间正序，keyset 分页），每个线程带前几条回复和回复数
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CommentDTO> getThreads(Long postId, String cursor, int size) {
+        return getThreads(postId, cursor, size, FieldSelection.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CommentDTO> getThreads(Long postId, String cursor, int size, FieldSelection fields) {
+        // 多取一条判断是否还有下一页
+        Pageable limit = PageRequest.of(0, size + 1);
+        FeedCursor after = cursor != null ? FeedCursor.decode(cursor) : null;
+        List<Comment> threads = after == null
+                ? commentRepository.findThreads(postId, limit)
+                : commentRepository.findThreadsAfter(postId, after.getCreatedAt(), after.getId(), limit);
+
+        boolean hasMore = threads.size() > size;
+        List<Comment> page = hasMore ? threads.subList(0, size) : threads;
+        return CursorPageDTO.<CommentDTO>builder()
+                .content(toThreadPreviews(page, fields))
+                .nextCursor(hasMore ? cursorOf(page.get(page.size() - 1)) : null)
+                .hasMore(hasMore)
+                .size(size)
+                .build();
+    }
+
+    /**
+     * 展开评论的子树（不含自身），按展示顺序分页，一次范围查询
+     * 返回扁平列表，客户端按 parentId 组装嵌套结构
+     * @param cursor 线程预览的 repliesCursor 或上一页的 nextCursor（子树内评论的路径）
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CommentDTO> getReplies(Comment comment, String cursor, int size) {
+        return getReplies(comment, cursor, size, FieldSelection.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CommentDTO> getReplies(Comment comment, String cursor, int size, FieldSelection fields) {
+        if (cursor != null && !CommentPath.isWithinSubtree(comment.getPath(), cursor)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        List<Comment> nodes = commentRepository.findSubtree(comment.getRootId(),
+                cursor != null ? cursor : comment.getPath(), CommentPath.subtreeEnd(comment.getPath()),
+                PageRequest.of(0, size + 1));
+
+        boolean hasMore = nodes.size() > size;
+        List<Comment> page = hasMore ? nodes.subList(0, size) : nodes;
+        return CursorPageDTO.<CommentDTO>builder()
+                .content(toDTOs(page, fields))
+                .nextCursor(hasMore ? page.get(page.size() - 1).getPath() : null)
+                .hasMore(hasMore)
+                .size(size)
+                .build();
     }
 
     /**
-     * 获取帖子的所有顶级评论（带嵌套回复）
+     * 线程预览：一次查询取所有线程按展示顺序的前 PREVIEW_REPLIES 条回复，一次查询取回复数
+     * 回复使用与顶级评论相同的字段选择；未选择 replies / replyCount / repliesCursor 时不执行对应查询
      */
-    public List<CommentDTO> getTopLevelCommentsByPostId(Long postId) {
-        List<Comment> comments = commentRepository.findByPostIdAndParentIsNullOrderByCreatedAtAsc(postId);
-        return comments.stream().map(this::toDTOWithReplies).collect(Collectors.toList());
+    private List<CommentDTO> toThreadPreviews(List<Comment> threads, FieldSelection fields) {
+        if (threads.isEmpty()) {
+            return new ArrayList<>();
+        }
+        boolean withReplies = fields.includes("replies");
+        boolean withCursor = fields.includes("repliesCursor");
+        boolean withCount = fields.includes("replyCount");
+
+        List<Long> threadIds = threads.stream().map(Comment::getId).collect(Collectors.toList());
+        Map<Long, Integer> replyCounts = new HashMap<>();
+        if (withCount || withCursor) {
+            for (Object[] row : commentRepository.countRepliesByRootIds(threadIds)) {
+                replyCounts.put((Long) row[0], ((Long) row[1]).intValue());
+            }
+        }
+        Map<Long, List<Comment>> repliesByThread = new HashMap<>();
+        if (withReplies || withCursor) {
+            for (Comment reply : commentRepository.findThreadPreviews(threadIds, PREVIEW_REPLIES)) {
+                repliesByThread.computeIfAbsent(reply.getRootId(), id -> new ArrayList<>()).add(reply);
+            }
+        }
+
+        List<Comment> all = new ArrayList<>(threads);
+        repliesByThread.values().forEach(all::addAll);
+        CommentUsers users = users(all, fields);
+
+        List<CommentDTO> result = new ArrayList<>(threads.size());
+        for (Comment thread : threads) {
+            CommentDTO dto = toDTO(thread, fields, users);
+            int replyCount = replyCounts.getOrDefault(thread.getId(), 0);
+            if (withCount) {
+                dto.setReplyCount(replyCount);
+            }
+            List<Comment> replies = repliesByThread.getOrDefault(thread.getId(), Collections.emptyList());
+            if (!replies.isEmpty()) {
+                if (withReplies) {
+                    nest(thread, dto, replies, fields, users);
+                }
+                if (withCursor && replyCount > replies.size()) {
+                    dto.setRepliesCursor(replies.get(replies.size() - 1).getPath());
+                }
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+
+    /**
+     * 把按展示顺序排列的回复挂到各自的父评论下；先序遍历保证父评论先出现
+     * 按实体的 id 和父评论 id 组装，字段选择中不需要包含 id / parentId
+     */
+    private void nest(Comment thread, CommentDTO threadDTO, List<Comment> replies, FieldSelection fields,
+                      CommentUsers users) {
+        Map<Long, CommentDTO> byId = new HashMap<>();
+        byId.put(thread.getId(), threadDTO);
+        for (Comment reply : replies) {
+            CommentDTO dto = toDTO(reply, fields, users);
+            CommentDTO parent = byId.getOrDefault(reply.getParent().getId(), threadDTO);
+            if (parent.getReplies() == null) {
+                parent.setReplies(new ArrayList<>());
+            }
+            parent.getReplies().add(dto);
+            byId.put(reply.getId(), dto);
+        }
+    }
+
+    private static String cursorOf(Comment comment) {
+        return new FeedCursor(comment.getCreatedAt(), comment.getId()).encode();
     }
 
     /**
@@ -59,6 +225,13 @@ public class CommentService {
         return commentRepository.findById(commentId);
     }
 
+    /**
+     * 同时加载评论作者（AI 生成回复时在生成线程中使用）
+     */
+    public Optional<Comment> findWithUserById(Long commentId) {
+        return commentRepository.findWithUserById(commentId);
+    }
+
     /**
      * 创建顶级评论
      */
@@ -71,11 +244,21 @@ public class CommentService {
                 .aiGenerated(true)
                 .build();
         Comment savedComment = commentRepository.save(comment);
+        // 路径依赖自增 id，保存后填充，提交时一并更新
+        CommentPath.assign(savedComment);
 
         // 更新帖子的评论数
-        post.setCommentCount((post.getCommentCount() != null ? post.getCommentCount() : 0) + 1);
-        postRepository.save(post);
+        Object[] counters = incrementCommentCount(post.getId());
+        Integer likeCount = (Integer) counters[0];
+        Integer commentCount = (Integer) counters[1];
 
+        TransactionHooks.afterCommit(() -> {
+            searchIndex.addComment(savedComment.getId(), savedComment.getContent());
+            contentVersionTracker.postChanged(post.getId());
+            contentVersionTracker.userChanged(user.getId());
+            readRouting.recordWrite(user.getId());
+            feedEventHub.countersChanged(post.getId(), likeCount, commentCount);
+        });
         return savedComment;
     }
 
@@ -88,6 +271,9 @@ public class CommentService {
         if (!parentComment.getPost().getId().equals(post.getId())) {
             throw new IllegalArgumentException("Parent comment does not belong to the specified post");
         }
+        if (!CommentPath.acceptsReplies(parentComment)) {
+            throw new IllegalArgumentException("Reply depth limit reached");
+        }
 
         Comment reply = Comment.builder()
                 .post(post)
@@ -97,22 +283,41 @@ public class CommentService {
                 .aiGenerated(true)
                 .build();
         Comment savedReply = commentRepository.save(reply);
+        CommentPath.assign(savedReply);
 
         // 更新帖子的评论数
-        post.setCommentCount((post.getCommentCount() != null ? post.getCommentCount() : 0) + 1);
-        postRepository.save(post);
+        Object[] counters = incrementCommentCount(post.getId());
+        Integer likeCount = (Integer) counters[0];
+        Integer commentCount = (Integer) counters[1];
 
+        TransactionHooks.afterCommit(() -> {
+            searchIndex.addComment(savedReply.getId(), savedReply.getContent());
+            contentVersionTracker.postChanged(post.getId());
+            contentVersionTracker.userChanged(user.getId());
+            readRouting.recordWrite(user.getId());
+            feedEventHub.countersChanged(post.getId(), likeCount, commentCount);
+        });
         return savedReply;
     }
 
+    /**
+     * 用 UPDATE 原子地加一，不保存传入的帖子实体：生成接口在请求线程加载帖子，
+     * 生成期间其他请求可能已经改变了点赞数和评论数
+     * @return 更新后的 [likeCount, commentCount]
+     */
+    private Object[] incrementCommentCount(Long postId) {
+        postRepository.incrementCommentCount(postId);
+        return postRepository.findCountersById(postId).get(0);
+    }
+
     /**
      * AI 生成评论
+     * 与 PostService.generatePost 一样，生成完成后才开启事务保存
      */
-    @Transactional
     public Comment generateComment(Post post, User commenter) {
         String content = aiGenerationService.generateCommentContent(commenter, post);
         if (content != null && !content.isEmpty()) {
-            return createComment(post, commenter, content);
+            return transactionTemplate.execute(status -> createComment(post, commenter, content));
         }
         return null;
     }
@@ -120,11 +325,10 @@ public class CommentService {
     /**
      * AI 生成回复
      */
-    @Transactional
     public Comment generateReply(Post post, User replier, Comment parentComment) {
         String content = aiGenerationService.generateReplyContent(replier, post, parentComment);
         if (content != null && !content.isEmpty()) {
-            return createReply(post, replier, content, parentComment);
+            return transactionTemplate.execute(status -> createReply(post, replier, content, parentComment));
         }
         return null;
     }
@@ -133,50 +337,103 @@ public class CommentService {
      * 转换为 DTO（不含子评论）
      */
     public CommentDTO toDTO(Comment comment) {
-        CommentDTO.CommentDTOBuilder builder = CommentDTO.builder()
-                .id(comment.getId())
-                .user(userService.toDTO(comment.getUser()))
-                .content(comment.getContent())
-                .aiGenerated(comment.getAiGenerated())
-                .createdAt(comment.getCreatedAt());
-
-        // 如果有父评论，设置父评论ID和被回复的用户
-        if (comment.getParent() != null) {
-            builder.parentId(comment.getParent().getId());
-            builder.replyToUser(userService.toDTO(comment.getParent().getUser()));
-        }
-
-        return builder.build();
+        return toDTO(comment, FieldSelection.ALL);
     }
 
     /**
-     * 转换为 DTO（包含子评论）
+     * 只填充选择的字段；未选择 user / replyToUser 时不加载对应用户
      */
-    public CommentDTO toDTOWithReplies(Comment comment) {
-        return toDTOWithReplies(comment, 0);
+    public CommentDTO toDTO(Comment comment, FieldSelection fields) {
+        return toDTOs(List.of(comment), fields).get(0);
     }
 
-    private static final int MAX_REPLY_DEPTH = 5;  // 最大嵌套深度
+    /**
+     * 批量转换为 DTO，作者和被回复用户一起构建，发帖数 / 评论数各查询一次
+     */
+    public List<CommentDTO> toDTOs(List<Comment> comments, FieldSelection fields) {
+        CommentUsers users = users(comments, fields);
+        return comments.stream().map(comment -> toDTO(comment, fields, users)).collect(Collectors.toList());
+    }
 
     /**
-     * 转换为 DTO（包含子评论，带深度限制）
+     * 评论作者和被回复用户的 DTO；两者选择的字段相同时只构建一次
+     * 不在当前页中的父评论先一次查询载入，再读取它们的作者
      */
-    private CommentDTO toDTOWithReplies(Comment comment, int depth) {
-        CommentDTO dto = toDTO(comment);
+    private CommentUsers users(List<Comment> comments, FieldSelection fields) {
+        boolean withAuthor = fields.includes("user");
+        boolean withReplyTo = fields.includes("replyToUser");
+        List<User> authors = withAuthor
+                ? comments.stream().map(Comment::getUser).collect(Collectors.toList())
+                : Collections.emptyList();
+        List<User> replyTo = Collections.emptyList();
+        if (withReplyTo) {
+            List<Long> unloadedParents = comments.stream()
+                    .map(Comment::getParent)
+                    .filter(parent -> parent != null && !Hibernate.isInitialized(parent))
+                    .map(Comment::getId)
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (!unloadedParents.isEmpty()) {
+                commentRepository.findAllById(unloadedParents);
+            }
+            replyTo = comments.stream()
+                    .map(Comment::getParent)
+                    .filter(Objects::nonNull)
+                    .map(Comment::getUser)
+                    .collect(Collectors.toList());
+        }
 
-        // 超过最大深度则不再获取子评论
-        if (depth >= MAX_REPLY_DEPTH) {
-            return dto;
+        FieldSelection authorFields = fields.nested("user");
+        FieldSelection replyToFields = fields.nested("replyToUser");
+        if (withAuthor && withReplyTo && authorFields.isAll() && replyToFields.isAll()) {
+            List<User> all = new ArrayList<>(authors);
+            all.addAll(replyTo);
+            Map<Long, UserDTO> dtos = userService.toDTOs(all, FieldSelection.ALL);
+            return new CommentUsers(dtos, dtos);
+        }
+        return new CommentUsers(
+                authors.isEmpty() ? Collections.emptyMap() : userService.toDTOs(authors, authorFields),
+                replyTo.isEmpty() ? Collections.emptyMap() : userService.toDTOs(replyTo, replyToFields));
+    }
+
+    private CommentDTO toDTO(Comment comment, FieldSelection fields, CommentUsers users) {
+        CommentDTO.CommentDTOBuilder builder = CommentDTO.builder();
+        if (fields.includes("id")) {
+            builder.id(comment.getId());
+        }
+        if (fields.includes("user")) {
+            builder.user(users.authors.get(comment.getUser().getId()));
+        }
+        if (fields.includes("content")) {
+            builder.content(comment.getContent());
+        }
+        if (fields.includes("aiGenerated")) {
+            builder.aiGenerated(comment.getAiGenerated());
+        }
+        if (fields.includes("createdAt")) {
+            builder.createdAt(comment.getCreatedAt());
         }
 
-        // 获取并转换子评论
-        List<Comment> replies = commentRepository.findByParentIdOrderByCreatedAtAsc(comment.getId());
-        if (!replies.isEmpty()) {
-            dto.setReplies(replies.stream()
-                    .map(reply -> toDTOWithReplies(reply, depth + 1))
-                    .collect(Collectors.toList()));
+        // 如果有父评论，设置父评论ID和被回复的用户
+        if (comment.getParent() != null) {
+            if (fields.includes("parentId")) {
+                builder.parentId(comment.getParent().getId());
+            }
+            if (fields.includes("replyToUser")) {
+                builder.replyToUser(users.replyTo.get(comment.getParent().getUser().getId()));
+            }
         }
 
-        return dto;
+        return builder.build();
+    }
+
+    private static final class CommentUsers {
+        private final Map<Long, UserDTO> authors;
+        private final Map<Long, UserDTO> replyTo;
+
+        private CommentUsers(Map<Long, UserDTO> authors, Map<Long, UserDTO> replyTo) {
+            this.authors = authors;
+            this.replyTo = replyTo;
+        }
     }
 }
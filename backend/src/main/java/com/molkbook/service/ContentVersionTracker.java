@@ -0,0 +1,212 @@
+package com.molkbook.service;
+
+import com.molkbook.datasource.ReadRouting;
+import com.molkbook.entity.ContentVersion;
+import com.molkbook.repository.ContentVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内容版本戳，用于 Feed、帖子详情和用户资料的 ETag
+ * 版本戳是单调递增的毫秒时间，写操作在事务提交后更新，读取只查内存；
+ * ETag 中带有启动时间，重启前发出的 ETag 都不会再匹配，客户端重新拉取一次即可
+ * 不用作 Last-Modified：HTTP 日期只精确到秒，同一秒内的修改会被误判为未修改
+ *
+ * 多实例部署时，本实例的写入每隔 sync-interval-ms 写入 content_versions 表，同时轮询其他实例的写入，
+ * 按本实例的时钟重新打上版本戳；其他实例的写入最多滞后两个同步间隔（时钟偏差需小于 sync-overlap-seconds）
+ */
+@Slf4j
+@Component
+public class ContentVersionTracker {
+
+    private static final String POST = "post:";
+    private static final String USER = "user:";
+
+    private final ContentVersionRepository contentVersionRepository;
+    private final int maxTracked;
+    private final long syncOverlapMillis;
+    private final long bootEpoch;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final Map<Long, Long> postVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> userVersions = new ConcurrentHashMap<>();
+
+    // 本实例尚未写入 content_versions 的变化：key -> 版本戳
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    // 同步过的共享版本，轮询时跳过已经处理过的行（包括本实例自己写入的）；只在 sync 中访问
+    private final Map<String, Long> synced = new HashMap<>();
+    // 已轮询到的最大共享版本
+    private long syncedUpTo;
+
+    // 未单独记录的帖子 / 用户的版本；记录数超过上限时整体前移并清空
+    private volatile long baseline;
+    // 任意帖子、评论、点赞或用户资料变化
+    private volatile long feedVersion;
+    // 任意用户资料或发帖数、评论数变化；帖子详情中嵌套了作者和评论者的信息
+    private volatile long anyUserVersion;
+
+    /**
+     * @param syncOverlapSeconds 轮询时回看的时间，需大于各实例间的时钟偏差加上同步间隔
+     */
+    public ContentVersionTracker(ContentVersionRepository contentVersionRepository,
+                                 @Value("${content-version.max-tracked:100000}") int maxTracked,
+                                 @Value("${content-version.sync-overlap-seconds:10}") long syncOverlapSeconds) {
+        this.contentVersionRepository = contentVersionRepository;
+        this.maxTracked = maxTracked;
+        this.syncOverlapMillis = syncOverlapSeconds * 1000;
+        this.baseline = nextStamp();
+        this.bootEpoch = baseline;
+        this.feedVersion = baseline;
+        this.anyUserVersion = baseline;
+        // 启动前的写入已经包含在首次请求读到的数据中
+        this.syncedUpTo = baseline;
+    }
+
+    public long feedVersion() {
+        return feedVersion;
+    }
+
+    public long postVersion(Long postId) {
+        long version = Math.max(postVersions.getOrDefault(postId, 0L), baseline);
+        return Math.max(version, anyUserVersion);
+    }
+
+    public long userVersion(Long userId) {
+        return Math.max(userVersions.getOrDefault(userId, 0L), baseline);
+    }
+
+    /**
+     * 列表中单个帖子的版本：帖子本身和作者资料，不含评论
+     */
+    public long postSummaryVersion(Long postId, Long authorId) {
+        return Math.max(Math.max(postVersions.getOrDefault(postId, 0L), baseline),
+                userVersions.getOrDefault(authorId, 0L));
+    }
+
+    /**
+     * 帖子内容、点赞数或评论变化
+     */
+    public void postChanged(Long postId) {
+        pending.put(POST + postId, markPost(postId));
+    }
+
+    /**
+     * 用户资料、发帖数或评论数变化
+     */
+    public void userChanged(Long userId) {
+        pending.put(USER + userId, markUser(userId));
+    }
+
+    private long markPost(Long postId) {
+        long stamp = nextStamp();
+        track(postVersions, postId, stamp);
+        feedVersion = stamp;
+        return stamp;
+    }
+
+    private long markUser(Long userId) {
+        long stamp = nextStamp();
+        track(userVersions, userId, stamp);
+        anyUserVersion = stamp;
+        feedVersion = stamp;
+        return stamp;
+    }
+
+    /**
+     * 写入本实例的变化，再读取其他实例的变化
+     * 数据库不可用时保留未写入的变化，下次重试
+     */
+    @Scheduled(fixedDelayString = "${content-version.sync-interval-ms:1000}")
+    public synchronized void sync() {
+        try {
+            publishPending();
+            applyRemote(ReadRouting.onPrimary(() ->
+                    contentVersionRepository.findChangedSince(syncedUpTo - syncOverlapMillis)));
+        } catch (DataAccessException e) {
+            log.warn("Content version sync failed: {}", e.getMessage());
+        }
+    }
+
+    private void publishPending() {
+        for (String key : List.copyOf(pending.keySet())) {
+            Long version = pending.remove(key);
+            if (version == null) {
+                continue;
+            }
+            try {
+                publish(key, version);
+            } catch (DataAccessException e) {
+                pending.merge(key, version, Math::max);
+                throw e;
+            }
+            synced.merge(key, version, Math::max);
+        }
+    }
+
+    private void publish(String key, long version) {
+        if (contentVersionRepository.advance(key, version) > 0) {
+            return;
+        }
+        try {
+            contentVersionRepository.saveAndFlush(new ContentVersion(key, version));
+        } catch (DataIntegrityViolationException e) {
+            // 其他实例同时插入了这一行
+            contentVersionRepository.advance(key, version);
+        }
+    }
+
+    private void applyRemote(List<Object[]> rows) {
+        if (synced.size() >= maxTracked) {
+            // 清空后回看窗口内的行会再处理一次，只会多更新一次版本戳
+            synced.clear();
+        }
+        for (Object[] row : rows) {
+            String key = (String) row[0];
+            long version = (Long) row[1];
+            syncedUpTo = Math.max(syncedUpTo, version);
+            Long seen = synced.get(key);
+            if (seen != null && seen >= version) {
+                continue;
+            }
+            synced.put(key, version);
+            // 其他实例的时钟可能落后，不直接使用它的版本戳
+            Long id = Long.valueOf(key.substring(key.indexOf(':') + 1));
+            if (key.startsWith(POST)) {
+                markPost(id);
+            } else if (key.startsWith(USER)) {
+                markUser(id);
+            }
+        }
+    }
+
+    private void track(Map<Long, Long> versions, Long id, long stamp) {
+        if (versions.size() >= maxTracked) {
+            // 新的 baseline 比所有已发出的版本都大，清空后不会误判为未修改
+            baseline = stamp;
+            versions.clear();
+        }
+        versions.put(id, stamp);
+    }
+
+    private long nextStamp() {
+        return clock.updateAndGet(prev -> Math.max(prev + 1, System.currentTimeMillis()));
+    }
+
+    /**
+     * 弱 ETag；响应中包含当前用户的点赞状态，所以带上用户 ID
+     */
+    public String etag(long version, Long currentUserId) {
+        return "W/\"" + bootEpoch + "-" + version + "-" + (currentUserId != null ? currentUserId : 0) + "\"";
+    }
+}
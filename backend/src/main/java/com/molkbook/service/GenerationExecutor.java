@@ -0,0 +1,124 @@
+package com.molkbook.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 同步（非流式）AI 生成接口的专用线程池
+ * 生成在这里执行，Tomcat 请求线程立即释放，生成再慢也不会占满请求线程池、拖慢 Feed 读取
+ * - 线程数和排队数都有上限，都满时直接返回 503
+ * - 超过 timeout-seconds 返回 504；生成本身不中断，完成后照常保存，带幂等键的重试可以拿到结果
+ * 线程池指标见 executor.*{name="generation"}
+ */
+@Slf4j
+@Component
+public class GenerationExecutor {
+
+    private static final ResponseEntity<Map<String, Object>> BUSY = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "5")
+            .body(Map.of("success", false, "error", "Too many generation requests, please retry later"));
+    private static final ResponseEntity<Map<String, Object>> TIMED_OUT = ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+            .body(Map.of("success", false, "error", "Generation timed out"));
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final Counter rejectedCounter;
+    private final Counter timeoutCounter;
+
+    public GenerationExecutor(MeterRegistry meterRegistry,
+                              @Value("${generation.threads:16}") int threads,
+                              @Value("${generation.queue-capacity:32}") int queueCapacity,
+                              @Value("${generation.timeout-seconds:60}") long timeoutSeconds) {
+        this.timeoutMillis = timeoutSeconds * 1000;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "generation-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+
+        new ExecutorServiceMetrics(executor, "generation", Tags.empty()).bindTo(meterRegistry);
+        this.rejectedCounter = Counter.builder("molkbook.generation.requests")
+                .description("Interactive generation requests that were rejected or timed out")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("molkbook.generation.requests")
+                .description("Interactive generation requests that were rejected or timed out")
+                .tag("outcome", "timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在生成线程池中执行；线程和队列都满时返回 503（不抛异常，幂等键也不会保存这个结果）
+     */
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> submit(Supplier<ResponseEntity<Map<String, Object>>> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Generation executor saturated ({} active, {} queued)", executor.getActiveCount(), executor.getQueue().size());
+            return CompletableFuture.completedFuture(BUSY);
+        }
+    }
+
+    /**
+     * 是否有生成请求在排队（所有生成线程都在忙），后台生成任务据此让路
+     */
+    public boolean isSaturated() {
+        return !executor.getQueue().isEmpty();
+    }
+
+    /**
+     * 转为异步响应，超时时间只作用于这个请求
+     */
+    public DeferredResult<ResponseEntity<Map<String, Object>>> respond(CompletableFuture<ResponseEntity<Map<String, Object>>> future) {
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>(timeoutMillis, TIMED_OUT);
+        result.onTimeout(timeoutCounter::increment);
+        future.whenComplete((response, error) -> {
+            if (error != null) {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                result.setResult(response);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 不需要生成就能确定的响应（未登录、资源不存在等）
+     */
+    public static DeferredResult<ResponseEntity<Map<String, Object>>> immediate(ResponseEntity<Map<String, Object>> response) {
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,134 @@
+package com.molkbook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * AI 生成接口的幂等键（Idempotency-Key 请求头）
+ * 同一用户、同一操作、同一个键只执行一次：
+ * - 首个请求还在执行时，重试共享它的结果（异步等待，不占用线程）
+ * - 执行完成后 ttl-seconds 内，重试直接拿到保存的响应（带 Idempotent-Replayed: true）
+ * 异常或 5xx 的结果只返回给已经在等待的重试，不保存，之后的重试重新执行
+ * 执行中的条目不会过期也不会被淘汰，存满时新请求不使用幂等键直接执行
+ */
+@Slf4j
+@Component
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final int maxSize;
+
+    /**
+     * 不设容量上限，由 execute 检查条目数；执行完成后才开始计算 ttl
+     */
+    private final Cache<String, Entry> entries;
+
+    public IdempotencyService(@Value("${idempotency.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${idempotency.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return Long.MAX_VALUE;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param key 请求头中的幂等键，为 null 时直接执行
+     * @throws IllegalArgumentException 键为空白或过长
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<ResponseEntity<T>> execute(Long userId, String operation, String key,
+                                                            Supplier<CompletableFuture<ResponseEntity<T>>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Invalid " + HEADER);
+        }
+        if (entries.estimatedSize() >= maxSize) {
+            entries.cleanUp();
+            if (entries.estimatedSize() >= maxSize) {
+                log.warn("Idempotency store full ({} entries), executing {} without a key", maxSize, operation);
+                return action.get();
+            }
+        }
+
+        String storeKey = userId + "|" + operation + "|" + key;
+        Entry entry = new Entry();
+        Entry existing = entries.get(storeKey, k -> entry);
+        if (existing != entry) {
+            return existing.result.thenApply(response -> replay((ResponseEntity<T>) response));
+        }
+
+        CompletableFuture<ResponseEntity<T>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            entries.asMap().remove(storeKey, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        response.whenComplete((result, error) -> {
+            if (error != null || result.getStatusCode().is5xxServerError()) {
+                entries.asMap().remove(storeKey, entry);
+            } else {
+                // 原值替换自身，触发 expireAfterUpdate，从此刻开始计算 ttl
+                entries.asMap().replace(storeKey, entry, entry);
+            }
+            if (error != null) {
+                entry.result.completeExceptionally(error);
+            } else {
+                entry.result.complete(result);
+            }
+        });
+        return response;
+    }
+
+    private static <T> ResponseEntity<T> replay(ResponseEntity<T> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    public Cache<String, ?> getCache() {
+        return entries;
+    }
+
+    public long getSize() {
+        return entries.estimatedSize();
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,132 @@
+package com.molkbook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.molkbook.repository.PostLikeRepository;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户点赞帖子集合缓存，每个用户一个压缩位图（Roaring）
+ * 首次访问时从 post_likes 加载该用户全部点赞，之后由点赞 / 取消点赞在事务提交后更新；
+ * Feed 的 liked 标记和重复点赞判断都只查内存。多实例部署时其他实例的写入最多滞后 TTL
+ */
+@Component
+public class LikedPostCache {
+
+    private final PostLikeRepository postLikeRepository;
+    private final Cache<Long, Roaring64NavigableMap> entries;
+
+    public LikedPostCache(PostLikeRepository postLikeRepository,
+                          @Value("${liked-cache.ttl-seconds:300}") long ttlSeconds,
+                          @Value("${liked-cache.max-size:10000}") int maxSize) {
+        this.postLikeRepository = postLikeRepository;
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        // TTL 从加载时开始计算，markLiked / markUnliked 修改位图不会延长
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<Long, Roaring64NavigableMap>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, Roaring64NavigableMap bitmap, long currentTime) {
+                        return ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, Roaring64NavigableMap bitmap, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, Roaring64NavigableMap bitmap, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public boolean isLiked(Long userId, Long postId) {
+        if (userId == null || postId == null) {
+            return false;
+        }
+        Roaring64NavigableMap bitmap = bitmap(userId);
+        synchronized (bitmap) {
+            return bitmap.contains(postId);
+        }
+    }
+
+    /**
+     * 返回 postIds 中当前用户已点赞的帖子
+     */
+    public Set<Long> likedAmong(Long userId, Collection<Long> postIds) {
+        Set<Long> liked = new HashSet<>();
+        if (userId == null || postIds.isEmpty()) {
+            return liked;
+        }
+        Roaring64NavigableMap bitmap = bitmap(userId);
+        synchronized (bitmap) {
+            for (Long postId : postIds) {
+                if (bitmap.contains(postId)) {
+                    liked.add(postId);
+                }
+            }
+        }
+        return liked;
+    }
+
+    /**
+     * 点赞提交后调用；用户未加载时不需要处理，下次访问会从数据库加载
+     * 与加载在同一个用户上互斥：提交前开始的加载完成后才会打上标记，加载结果不会覆盖它
+     * （computeIfPresent 看不到加载中的条目，不会等待，所以用 compute）
+     */
+    public void markLiked(Long userId, Long postId) {
+        entries.asMap().compute(userId, (id, bitmap) -> {
+            if (bitmap == null) {
+                return null;
+            }
+            synchronized (bitmap) {
+                bitmap.addLong(postId);
+            }
+            return bitmap;
+        });
+    }
+
+    public void markUnliked(Long userId, Long postId) {
+        entries.asMap().compute(userId, (id, bitmap) -> {
+            if (bitmap == null) {
+                return null;
+            }
+            synchronized (bitmap) {
+                bitmap.removeLong(postId);
+            }
+            return bitmap;
+        });
+    }
+
+    /**
+     * 加载在缓存的 compute 中进行，同一用户的并发加载只查询一次，markLiked / markUnliked 等待加载完成
+     */
+    private Roaring64NavigableMap bitmap(Long userId) {
+        return entries.get(userId, id -> {
+            Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+            for (Long postId : postLikeRepository.findPostIdsByUserId(id)) {
+                bitmap.addLong(postId);
+            }
+            bitmap.runOptimize();
+            return bitmap;
+        });
+    }
+
+    public Cache<Long, Roaring64NavigableMap> getCache() {
+        return entries;
+    }
+}
@@ -0,0 +1,109 @@
+package com.molkbook.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.molkbook.dto.PostDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * 帖子列表项的 JSON 片段缓存，按帖子 id + 版本戳（帖子本身和作者资料）命中
+ * 每个帖子保存已点赞 / 未点赞两份片段，响应时直接拼接，不再构建 DTO 和查询作者的计数；
+ * SerializedString 会缓存 UTF-8 字节，写出时只是一次字节拷贝
+ * 旧版本的片段不再被访问，由容量淘汰
+ */
+@Component
+public class PostJsonCache {
+
+    private final ObjectMapper objectMapper;
+    private final int maxSize;
+    private final Cache<Key, Entry> entries;
+
+    public PostJsonCache(ObjectMapper objectMapper,
+                         @Value("${post-json-cache.max-size:10000}") int maxSize) {
+        this.objectMapper = objectMapper;
+        this.maxSize = maxSize;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, maxSize))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return 版本一致时返回缓存的片段，否则返回 null
+     */
+    public RawValue get(Long postId, long version, boolean liked) {
+        Entry entry = entries.getIfPresent(new Key(postId, version));
+        if (entry == null) {
+            return null;
+        }
+        return liked ? entry.liked : entry.notLiked;
+    }
+
+    /**
+     * 序列化 DTO 并缓存两种点赞状态的片段
+     * @param cacheable 为 false 时只序列化不缓存（加载期间内容可能已变化）
+     * @return 对应 dto.liked 的片段
+     */
+    public RawValue put(PostDTO dto, long version, boolean cacheable) {
+        try {
+            RawValue liked = new RawValue(new SerializedString(
+                    objectMapper.writeValueAsString(dto.toBuilder().liked(true).build())));
+            RawValue notLiked = new RawValue(new SerializedString(
+                    objectMapper.writeValueAsString(dto.toBuilder().liked(false).build())));
+            if (cacheable && maxSize > 0) {
+                entries.put(new Key(dto.getId(), version), new Entry(liked, notLiked));
+            }
+            return Boolean.TRUE.equals(dto.getLiked()) ? liked : notLiked;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize post " + dto.getId(), e);
+        }
+    }
+
+    public Cache<?, ?> getCache() {
+        return entries;
+    }
+
+    private static final class Key {
+        private final Long postId;
+        private final long version;
+
+        private Key(Long postId, long version) {
+            this.postId = postId;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return version == other.version && postId.equals(other.postId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(postId, version);
+        }
+    }
+
+    private static final class Entry {
+        private final RawValue liked;
+        private final RawValue notLiked;
+
+        private Entry(RawValue liked, RawValue notLiked) {
+            this.liked = liked;
+            this.notLiked = notLiked;
+        }
+    }
+}
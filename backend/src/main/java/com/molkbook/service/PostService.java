@@ -1,27 +1,43 @@
 package com.molkbook.service;
 
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.molkbook.config.TransactionHooks;
+import com.molkbook.datasource.ReadRouting;
+import com.molkbook.dto.CommentDTO;
+import com.molkbook.dto.CursorPageDTO;
+import com.molkbook.dto.FieldSelection;
 import com.molkbook.dto.PostDTO;
+import com.molkbook.dto.UserDTO;
 import com.molkbook.entity.Post;
 import com.molkbook.entity.PostLike;
 import com.molkbook.entity.User;
-import com.molkbook.repository.CommentRepository;
+import com.molkbook.event.FeedEventHub;
+import com.molkbook.feed.ForYouRanker;
 import com.molkbook.repository.PostLikeRepository;
 import com.molkbook.repository.PostRepository;
-import javax.transaction.Transactional;
+import com.molkbook.search.SearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.HashSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,10 +46,18 @@ import java.util.stream.Collectors;
 public class PostService {
 
     private final PostRepository postRepository;
-    private final CommentRepository commentRepository;
     private final PostLikeRepository postLikeRepository;
     private final UserService userService;
     private final AIGenerationService aiGenerationService;
+    private final SearchIndex searchIndex;
+    private final TopicFeedCache topicFeedCache;
+    private final ForYouRanker forYouRanker;
+    private final LikedPostCache likedPostCache;
+    private final ContentVersionTracker contentVersionTracker;
+    private final FeedEventHub feedEventHub;
+    private final ReadRouting readRouting;
+    private final PostJsonCache postJsonCache;
+    private final TransactionTemplate transactionTemplate;
 
     // 使用 setter 注入配合 @Lazy 避免循环依赖
     private CommentService commentService;
@@ -46,20 +70,73 @@ public class PostService {
     /**
      * 获取帖子列表（分页）
      */
+    @Transactional(readOnly = true)
     public Page<PostDTO> getPosts(int page, int size, Long currentUserId) {
         Pageable pageable = PageRequest.of(page, size);
         Page<Post> posts = postRepository.findAllByOrderByCreatedAtDesc(pageable);
-        return mapPostsToDTO(posts, currentUserId);
+        return mapPostsToDTO(posts, currentUserId, FieldSelection.ALL);
     }
 
     /**
      * 获取帖子列表（按排序方式）
-     * @param sortBy: newest, likes, comments, hot
+     * @param sortBy: newest, likes, comments, hot, foryou
      */
+    @Transactional(readOnly = true)
     public Page<PostDTO> getPosts(int page, int size, String sortBy, Long currentUserId) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Post> posts;
+        return getPosts(page, size, sortBy, currentUserId, FieldSelection.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<PostDTO> getPosts(int page, int size, String sortBy, Long currentUserId, FieldSelection fields) {
+        return mapPostsToDTO(findPosts(PageRequest.of(page, size), sortBy, currentUserId), currentUserId, fields);
+    }
+
+    /**
+     * 获取帖子列表的 JSON 片段，与 getPosts 的结果序列化后相同
+     * 版本未变化的帖子直接使用 PostJsonCache 中的片段，不构建 DTO
+     */
+    @Transactional(readOnly = true)
+    public Page<RawValue> getPostsJson(int page, int size, String sortBy, Long currentUserId) {
+        // 先取版本戳再查询：之后发生的变化都会使版本大于它，查到的数据至少与它一致
+        long readStart = contentVersionTracker.feedVersion();
+        Page<Post> posts = findPosts(PageRequest.of(page, size), sortBy, currentUserId);
+        Set<Long> likedPostIds = likedPostCache.likedAmong(currentUserId,
+                posts.getContent().stream().map(Post::getId).collect(Collectors.toList()));
+
+        Map<Long, Long> versions = new HashMap<>();
+        Map<Long, RawValue> fragments = new HashMap<>();
+        List<User> missingAuthors = new ArrayList<>();
+        for (Post post : posts) {
+            // 读作者 id 不会初始化懒加载代理
+            long version = contentVersionTracker.postSummaryVersion(post.getId(), post.getUser().getId());
+            versions.put(post.getId(), version);
+            RawValue cached = postJsonCache.get(post.getId(), version, likedPostIds.contains(post.getId()));
+            if (cached != null) {
+                fragments.put(post.getId(), cached);
+            } else {
+                missingAuthors.add(post.getUser());
+            }
+        }
+        // 未命中缓存的帖子一起查询作者的发帖数 / 评论数
+        Map<Long, UserDTO> authors = missingAuthors.isEmpty()
+                ? Collections.emptyMap()
+                : userService.toDTOs(missingAuthors, FieldSelection.ALL);
+
+        return posts.map(post -> {
+            RawValue cached = fragments.get(post.getId());
+            if (cached != null) {
+                return cached;
+            }
+            // 查询开始后又有变化，或者数据可能来自尚未同步的从库时，只序列化不缓存
+            long version = versions.get(post.getId());
+            boolean cacheable = version <= readStart && readRouting.isReplicated(version);
+            return postJsonCache.put(toDTO(post, likedPostIds.contains(post.getId()), FieldSelection.ALL,
+                    authors.get(post.getUser().getId())), version, cacheable);
+        });
+    }
 
+    private Page<Post> findPosts(Pageable pageable, String sortBy, Long currentUserId) {
+        Page<Post> posts;
         switch (sortBy) {
             case "likes":
                 posts = postRepository.findAllByOrderByLikeCountDesc(pageable);
@@ -70,44 +147,164 @@ public class PostService {
             case "hot":
                 posts = postRepository.findAllByHotness(pageable);
                 break;
+            case "foryou":
+                posts = getForYouPosts(pageable, currentUserId);
+                break;
             case "newest":
             default:
                 posts = postRepository.findAllByOrderByCreatedAtDesc(pageable);
                 break;
         }
+        return posts;
+    }
+
+    /**
+     * 个性化排序在内存中完成，数据库只按 id 取当前页
+     */
+    private Page<Post> getForYouPosts(Pageable pageable, Long currentUserId) {
+        // 很大的页码直接视为超出范围，不能截断成负数
+        int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+        ForYouRanker.RankedPage ranked = forYouRanker.rank(currentUserId, offset, pageable.getPageSize());
+        if (ranked.postIds.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, ranked.total);
+        }
 
-        return mapPostsToDTO(posts, currentUserId);
+        Map<Long, Post> postsById = postRepository.findAllWithUserByIdIn(ranked.postIds).stream()
+                .collect(Collectors.toMap(Post::getId, post -> post));
+        List<Post> ordered = ranked.postIds.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ordered, pageable, ranked.total);
     }
 
-    private Page<PostDTO> mapPostsToDTO(Page<Post> posts, Long currentUserId) {
+    private Page<PostDTO> mapPostsToDTO(Page<Post> posts, Long currentUserId, FieldSelection fields) {
         // 批量查询当前用户是否点赞了这些帖子
         List<Long> postIds = posts.getContent().stream()
                 .map(Post::getId)
                 .collect(Collectors.toList());
 
-        Set<Long> likedPostIds = currentUserId != null
-                ? new HashSet<>(postLikeRepository.findLikedPostIdsByUserAndPostIds(currentUserId, postIds))
+        Set<Long> likedPostIds = fields.includes("liked")
+                ? likedPostCache.likedAmong(currentUserId, postIds)
                 : Collections.emptySet();
 
-        return posts.map(post -> toDTO(post, likedPostIds.contains(post.getId())));
+        Map<Long, UserDTO> authors = authorsOf(posts.getContent(), fields);
+
+        return posts.map(post -> toDTO(post, likedPostIds.contains(post.getId()), fields,
+                authors.get(post.getUser().getId())));
+    }
+
+    /**
+     * 获取话题 Feed（按时间倒序，keyset 分页）
+     * 首页走 TopicFeedCache（从主库加载，避免把从库上的旧数据缓存下来），之后的页按游标直接查询
+     * @param cursor 上一页返回的 nextCursor，首页为 null
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public CursorPageDTO<PostDTO> getTopicPosts(String topic, String cursor, int size, Long currentUserId) {
+        return getTopicPosts(topic, cursor, size, currentUserId, FieldSelection.ALL);
+    }
+
+    /**
+     * 缓存的首页是完整 DTO，选择了部分字段时不走缓存
+     */
+    public CursorPageDTO<PostDTO> getTopicPosts(String topic, String cursor, int size, Long currentUserId,
+                                                FieldSelection fields) {
+        CursorPageDTO<PostDTO> page = cursor == null && fields.isAll()
+                ? topicFeedCache.getFirstPage(topic, size, () -> ReadRouting.onPrimary(() -> loadTopicPage(topic, null, size, FieldSelection.ALL)))
+                : loadTopicPage(topic, cursor != null ? FeedCursor.decode(cursor) : null, size, fields);
+
+        List<Long> postIds = page.getContent().stream()
+                .map(PostDTO::getId)
+                .collect(Collectors.toList());
+        if (currentUserId == null || postIds.isEmpty() || !fields.includes("liked")) {
+            return page;
+        }
+
+        // 缓存中的 DTO 是共享的，点赞状态写在副本上
+        Set<Long> likedPostIds = likedPostCache.likedAmong(currentUserId, postIds);
+        return CursorPageDTO.<PostDTO>builder()
+                .content(page.getContent().stream()
+                        .map(dto -> dto.toBuilder().liked(likedPostIds.contains(dto.getId())).build())
+                        .collect(Collectors.toList()))
+                .nextCursor(page.getNextCursor())
+                .hasMore(page.getHasMore())
+                .size(page.getSize())
+                .build();
+    }
+
+    private CursorPageDTO<PostDTO> loadTopicPage(String topic, FeedCursor after, int size, FieldSelection fields) {
+        // 多取一条判断是否还有下一页，不需要 count 查询
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Post> posts = after == null
+                ? postRepository.findTopicFeed(topic, limit)
+                : postRepository.findTopicFeedAfter(topic, after.getCreatedAt(), after.getId(), limit);
+
+        boolean hasMore = posts.size() > size;
+        List<Post> pagePosts = hasMore ? posts.subList(0, size) : posts;
+        Post last = pagePosts.isEmpty() ? null : pagePosts.get(pagePosts.size() - 1);
+
+        return CursorPageDTO.<PostDTO>builder()
+                .content(toDTOs(pagePosts, Collections.emptySet(), fields))
+                .nextCursor(hasMore ? new FeedCursor(last.getCreatedAt(), last.getId()).encode() : null)
+                .hasMore(hasMore)
+                .size(size)
+                .build();
     }
 
     /**
      * 获取用户的帖子
      */
+    @Transactional(readOnly = true)
     public Page<PostDTO> getUserPosts(Long userId, int page, int size) {
+        return getUserPosts(userId, page, size, FieldSelection.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<PostDTO> getUserPosts(Long userId, int page, int size, FieldSelection fields) {
         Pageable pageable = PageRequest.of(page, size);
         Page<Post> posts = postRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
-        return posts.map(this::toDTO);
+        return posts.map(post -> toDTO(post, false, fields));
     }
 
     /**
      * 获取帖子详情
      */
+    @Transactional(readOnly = true)
     public Optional<PostDTO> getPostById(Long id) {
         return postRepository.findById(id).map(this::toDTOWithComments);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<PostDTO> getPostById(Long id, Long currentUserId) {
+        return getPostById(id, currentUserId, FieldSelection.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<PostDTO> getPostById(Long id, Long currentUserId, FieldSelection fields) {
+        return postRepository.findById(id).map(post -> toDTOWithComments(post, currentUserId, fields));
+    }
+
+    /**
+     * 批量获取帖子（不含评论），按 ids 的顺序返回，不存在的帖子跳过
+     * 帖子和作者一次查询，作者的发帖数 / 评论数和点赞状态各批量查询一次
+     */
+    @Transactional(readOnly = true)
+    public List<PostDTO> getPostsByIds(List<Long> ids, Long currentUserId, FieldSelection fields) {
+        Map<Long, Post> postsById = postRepository.findAllWithUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(Post::getId, post -> post));
+        Set<Long> likedPostIds = fields.includes("liked")
+                ? likedPostCache.likedAmong(currentUserId, postsById.keySet())
+                : Collections.emptySet();
+        Map<Long, UserDTO> authors = authorsOf(postsById.values(), fields);
+
+        return ids.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .map(post -> toDTO(post, likedPostIds.contains(post.getId()), fields,
+                        authors.get(post.getUser().getId())))
+                .collect(Collectors.toList());
+    }
+
     /**
      * 根据 ID 查找帖子
      */
@@ -117,26 +314,36 @@ public class PostService {
 
     /**
      * 创建帖子
+     * @param topic 为 null 时根据作者的兴趣标签自动选择
      */
     @Transactional
     public Post createPost(User user, String content, String topic) {
         Post post = Post.builder()
                 .user(user)
                 .content(content)
-                .topic(topic)
+                .topic(topic != null ? topic : userService.pickPostTopic(user.getId()))
                 .aiGenerated(true)
                 .build();
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        TransactionHooks.afterCommit(() -> {
+            searchIndex.addPost(saved.getId(), saved.getContent());
+            topicFeedCache.invalidate(saved.getTopic());
+            contentVersionTracker.postChanged(saved.getId());
+            contentVersionTracker.userChanged(user.getId());
+            readRouting.recordWrite(user.getId());
+            feedEventHub.postCreated(saved.getId());
+        });
+        return saved;
     }
 
     /**
      * AI 生成帖子
+     * 调用 SecondMe 期间不开启事务，避免生成的几秒内一直占用数据库连接；生成完成后再在事务中保存
      */
-    @Transactional
     public Post generatePost(User user) {
         String content = aiGenerationService.generatePostContent(user);
         if (content != null && !content.isEmpty()) {
-            return createPost(user, content, null);
+            return transactionTemplate.execute(status -> createPost(user, content, null));
         }
         return null;
     }
@@ -150,29 +357,46 @@ public class PostService {
 
     /**
      * 点赞帖子
+     * 重复点赞通常在内存中拒绝；缓存过期、其他实例的写入尚未同步或并发点赞时，由 post_likes 的唯一约束兜底
      */
-    @Transactional
     public boolean likePost(Long postId, User user) {
-        Post post = postRepository.findById(postId).orElse(null);
-        if (post == null) {
+        if (likedPostCache.isLiked(user.getId(), postId)) {
             return false;
         }
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> insertLike(postId, user)));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Post {} already liked by user {}", postId, user.getId());
+            likedPostCache.markLiked(user.getId(), postId);
+            return false;
+        }
+    }
 
-        // 检查是否已经点赞
-        if (postLikeRepository.existsByPostAndUser(post, user)) {
+    private boolean insertLike(Long postId, User user) {
+        if (!postRepository.existsById(postId)) {
             return false;
         }
 
-        // 创建点赞记录
+        // 创建点赞记录；帖子只取引用，不加载也不写回
         PostLike like = PostLike.builder()
-                .post(post)
+                .post(postRepository.getReferenceById(postId))
                 .user(user)
                 .build();
         postLikeRepository.save(like);
 
-        // 更新帖子的点赞数
-        post.setLikeCount(post.getLikeCount() + 1);
-        postRepository.save(post);
+        // 原子地更新点赞数，并发点赞或评论时不会覆盖彼此的计数
+        postRepository.incrementLikeCount(postId);
+        Object[] counters = postRepository.findCountersById(postId).get(0);
+
+        Long userId = user.getId();
+        Integer likeCount = (Integer) counters[0];
+        Integer commentCount = (Integer) counters[1];
+        TransactionHooks.afterCommit(() -> {
+            likedPostCache.markLiked(userId, postId);
+            contentVersionTracker.postChanged(postId);
+            readRouting.recordWrite(userId);
+            feedEventHub.countersChanged(postId, likeCount, commentCount);
+        });
 
         return true;
     }
@@ -182,22 +406,29 @@ public class PostService {
      */
     @Transactional
     public boolean unlikePost(Long postId, User user) {
-        Post post = postRepository.findById(postId).orElse(null);
-        if (post == null) {
+        // 没有点赞过直接返回，不查帖子
+        if (!likedPostCache.isLiked(user.getId(), postId)) {
             return false;
         }
 
-        // 检查是否已经点赞
-        if (!postLikeRepository.existsByPostAndUser(post, user)) {
+        // 删除点赞记录，按影响行数判断，缓存过期或帖子不存在时不会把计数减错
+        Long userId = user.getId();
+        if (postLikeRepository.deleteByPostIdAndUserId(postId, userId) == 0) {
             return false;
         }
 
-        // 删除点赞记录
-        postLikeRepository.deleteByPostAndUser(post, user);
+        // 原子地更新点赞数
+        postRepository.decrementLikeCount(postId);
+        Object[] counters = postRepository.findCountersById(postId).get(0);
 
-        // 更新帖子的点赞数
-        post.setLikeCount(Math.max(0, post.getLikeCount() - 1));
-        postRepository.save(post);
+        Integer likeCount = (Integer) counters[0];
+        Integer commentCount = (Integer) counters[1];
+        TransactionHooks.afterCommit(() -> {
+            likedPostCache.markUnliked(userId, postId);
+            contentVersionTracker.postChanged(postId);
+            readRouting.recordWrite(userId);
+            feedEventHub.countersChanged(postId, likeCount, commentCount);
+        });
 
         return true;
     }
@@ -206,24 +437,7 @@ public class PostService {
      * 检查用户是否点赞了帖子
      */
     public boolean hasUserLiked(Long postId, User user) {
-        Post post = postRepository.findById(postId).orElse(null);
-        if (post == null || user == null) {
-            return false;
-        }
-        return postLikeRepository.existsByPostAndUser(post, user);
-    }
-
-    /**
-     * 更新评论数
-     */
-    @Transactional
-    public void updateCommentCount(Long postId) {
-        Post post = postRepository.findById(postId).orElse(null);
-        if (post != null) {
-            long count = commentRepository.countByPostId(postId);
-            post.setCommentCount((int) count);
-            postRepository.save(post);
-        }
+        return user != null && likedPostCache.isLiked(user.getId(), postId);
     }
 
     /**
@@ -234,42 +448,99 @@ public class PostService {
     }
 
     public PostDTO toDTO(Post post, boolean liked) {
+        return toDTO(post, liked, FieldSelection.ALL);
+    }
+
+    /**
+     * 只填充选择的字段；未选择 user 时不加载作者，也不查询作者的计数
+     */
+    public PostDTO toDTO(Post post, boolean liked, FieldSelection fields) {
+        return toDTO(post, liked, fields,
+                fields.includes("user") ? userService.toDTO(post.getUser(), fields.nested("user")) : null);
+    }
+
+    /**
+     * 批量转换为 DTO，作者的发帖数 / 评论数各查询一次
+     */
+    public List<PostDTO> toDTOs(List<Post> posts, Set<Long> likedPostIds, FieldSelection fields) {
+        Map<Long, UserDTO> authors = authorsOf(posts, fields);
+        return posts.stream()
+                .map(post -> toDTO(post, likedPostIds.contains(post.getId()), fields,
+                        authors.get(post.getUser().getId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 未选择 user 时不加载作者
+     */
+    private Map<Long, UserDTO> authorsOf(Collection<Post> posts, FieldSelection fields) {
+        return fields.includes("user") && !posts.isEmpty()
+                ? userService.toDTOs(posts.stream().map(Post::getUser).collect(Collectors.toList()),
+                        fields.nested("user"))
+                : Collections.emptyMap();
+    }
+
+    private PostDTO toDTO(Post post, boolean liked, FieldSelection fields, UserDTO author) {
+        PostDTO.PostDTOBuilder builder = PostDTO.builder();
+        if (fields.includes("id")) {
+            builder.id(post.getId());
+        }
+        if (fields.includes("user")) {
+            builder.user(author);
+        }
+        if (fields.includes("content")) {
+            builder.content(post.getContent());
+        }
+        if (fields.includes("topic")) {
+            builder.topic(post.getTopic());
+        }
+        if (fields.includes("aiGenerated")) {
+            builder.aiGenerated(post.getAiGenerated());
+        }
+        if (fields.includes("createdAt")) {
+            builder.createdAt(post.getCreatedAt());
+        }
         // 使用存储的 count 值，避免 N+1 查询
         // 如果 count 为 null，默认为 0（新帖子）
-        return PostDTO.builder()
-                .id(post.getId())
-                .user(userService.toDTO(post.getUser()))
-                .content(post.getContent())
-                .topic(post.getTopic())
-                .aiGenerated(post.getAiGenerated())
-                .createdAt(post.getCreatedAt())
-                .likeCount(post.getLikeCount() != null ? post.getLikeCount() : 0)
-                .commentCount(post.getCommentCount() != null ? post.getCommentCount() : 0)
-                .liked(liked)
-                .build();
+        if (fields.includes("likeCount")) {
+            builder.likeCount(post.getLikeCount() != null ? post.getLikeCount() : 0);
+        }
+        if (fields.includes("commentCount")) {
+            builder.commentCount(post.getCommentCount() != null ? post.getCommentCount() : 0);
+        }
+        if (fields.includes("liked")) {
+            builder.liked(liked);
+        }
+        return builder.build();
     }
 
     /**
-     * 转换为包含评论的 DTO（返回嵌套的评论结构）
+     * 转换为包含评论预览的 DTO（前几个线程，每个线程带前几条回复）
      */
     public PostDTO toDTOWithComments(Post post, User currentUser) {
-        boolean liked = currentUser != null && postLikeRepository.existsByPostAndUser(post, currentUser);
-
-        return PostDTO.builder()
-                .id(post.getId())
-                .user(userService.toDTO(post.getUser()))
-                .content(post.getContent())
-                .topic(post.getTopic())
-                .aiGenerated(post.getAiGenerated())
-                .createdAt(post.getCreatedAt())
-                .likeCount(post.getLikeCount() != null ? post.getLikeCount() : 0)
-                .commentCount(post.getCommentCount() != null ? post.getCommentCount() : 0)
-                .liked(liked)
-                .comments(commentService.getTopLevelCommentsByPostId(post.getId()))
-                .build();
+        return toDTOWithComments(post, currentUser != null ? currentUser.getId() : null);
+    }
+
+    public PostDTO toDTOWithComments(Post post, Long currentUserId) {
+        return toDTOWithComments(post, currentUserId, FieldSelection.ALL);
+    }
+
+    public PostDTO toDTOWithComments(Post post, Long currentUserId, FieldSelection fields) {
+        boolean liked = fields.includes("liked") && likedPostCache.isLiked(currentUserId, post.getId());
+        PostDTO dto = toDTO(post, liked, fields);
+        if (fields.includes("comments") || fields.includes("commentsCursor")) {
+            CursorPageDTO<CommentDTO> threads = commentService.getThreadPreview(post.getId(), fields.nested("comments"));
+            if (fields.includes("comments")) {
+                dto.setComments(threads.getContent());
+            }
+            if (fields.includes("commentsCursor")) {
+                dto.setCommentsCursor(threads.getNextCursor());
+            }
+        }
+        return dto;
     }
 
     public PostDTO toDTOWithComments(Post post) {
-        return toDTOWithComments(post, null);
+        return toDTOWithComments(post, (Long) null);
     }
 }
@@ -0,0 +1,134 @@
+package com.molkbook.service;
+
+import com.molkbook.dto.SecondMeShade;
+import com.molkbook.dto.SecondMeUserInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录后的用户资料同步
+ * 将 getUserInfo / getUserShades 两次 SecondMe 调用移出 OAuth 回调的关键路径，
+ * 前端可以通过 /api/auth/profile-sync 轮询同步状态
+ * - 排队的任务数有上限，队列满时本次登录不同步（DEFERRED），资料沿用数据库中的数据，下次登录时再同步
+ * - 结束的状态保留 retention-seconds 后清除，之后按没有记录处理
+ */
+@Service
+@Slf4j
+public class ProfileSyncService {
+
+    public enum SyncStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        DEFERRED;
+
+        boolean isFinished() {
+            return this != PENDING && this != RUNNING;
+        }
+    }
+
+    private final SecondMeApiService secondMeApiService;
+    private final UserService userService;
+    private final long retentionMillis;
+
+    private final Map<Long, Entry> statuses = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor executor;
+
+    public ProfileSyncService(SecondMeApiService secondMeApiService, UserService userService,
+                              @Value("${profile-sync.threads:2}") int threads,
+                              @Value("${profile-sync.queue-capacity:100}") int queueCapacity,
+                              @Value("${profile-sync.retention-seconds:600}") long retentionSeconds) {
+        this.secondMeApiService = secondMeApiService;
+        this.userService = userService;
+        this.retentionMillis = retentionSeconds * 1000;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+    }
+
+    /**
+     * 提交后台同步任务，同一用户已有进行中的任务时不重复提交
+     */
+    public SyncStatus submit(Long userId, String secondmeToken) {
+        boolean[] submitted = {false};
+        Entry entry = statuses.compute(userId, (id, previous) -> {
+            if (previous != null && !previous.status.isFinished()) {
+                return previous;
+            }
+            submitted[0] = true;
+            return new Entry(SyncStatus.PENDING);
+        });
+
+        if (submitted[0]) {
+            try {
+                executor.execute(() -> sync(userId, secondmeToken));
+            } catch (RejectedExecutionException e) {
+                log.warn("Profile sync queue full, deferring sync for user {} to the next login", userId);
+                statuses.put(userId, new Entry(SyncStatus.DEFERRED));
+                return SyncStatus.DEFERRED;
+            }
+        }
+        return entry.status;
+    }
+
+    /**
+     * 获取用户的同步状态，没有记录时返回 null
+     */
+    public SyncStatus getStatus(Long userId) {
+        Entry entry = statuses.get(userId);
+        return entry != null ? entry.status : null;
+    }
+
+    private void sync(Long userId, String secondmeToken) {
+        statuses.put(userId, new Entry(SyncStatus.RUNNING));
+        try {
+            // SecondMe 调用放在事务之外，避免长时间占用数据库连接
+            SecondMeUserInfo userInfo = secondMeApiService.getUserInfo(secondmeToken);
+            if (userInfo == null) {
+                log.warn("Profile sync for user {} failed: no user info from SecondMe", userId);
+                statuses.put(userId, new Entry(SyncStatus.FAILED));
+                return;
+            }
+            List<SecondMeShade> shades = secondMeApiService.getUserShades(secondmeToken);
+
+            userService.applyProfile(userId, userInfo, shades);
+            statuses.put(userId, new Entry(SyncStatus.COMPLETED));
+            log.info("Profile sync completed for user {} ({} shades)", userId, shades.size());
+        } catch (Exception e) {
+            log.error("Profile sync failed for user {}", userId, e);
+            statuses.put(userId, new Entry(SyncStatus.FAILED));
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictFinished() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        statuses.values().removeIf(entry -> entry.status.isFinished() && entry.updatedAt < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Entry {
+        final SyncStatus status;
+        final long updatedAt = System.currentTimeMillis();
+
+        Entry(SyncStatus status) {
+            this.status = status;
+        }
+    }
+}
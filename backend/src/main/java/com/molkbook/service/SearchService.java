@@ -0,0 +1,152 @@
+package com.molkbook.service;
+
+import com.molkbook.dto.CommentDTO;
+import com.molkbook.dto.FieldSelection;
+import com.molkbook.dto.PostDTO;
+import com.molkbook.dto.SearchResultDTO;
+import com.molkbook.entity.Comment;
+import com.molkbook.entity.Post;
+import com.molkbook.repository.CommentRepository;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.search.SearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 全文搜索：启动时从数据库重建索引，之后由 PostService / CommentService 在提交后增量更新
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SearchService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final SearchIndex searchIndex;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final LikedPostCache likedPostCache;
+
+    // 使用 setter 注入配合 @Lazy 避免循环依赖
+    private PostService postService;
+    private CommentService commentService;
+
+    @Autowired
+    public void setPostService(@Lazy PostService postService) {
+        this.postService = postService;
+    }
+
+    @Autowired
+    public void setCommentService(@Lazy CommentService commentService) {
+        this.commentService = commentService;
+    }
+
+    /**
+     * 按 id 分批读取帖子和评论内容建立索引，只查询 id 和 content 两列
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int posts = indexAll(afterId -> postRepository.findIdAndContentAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE)),
+                searchIndex::addPost);
+        int comments = indexAll(afterId -> commentRepository.findIdAndContentAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE)),
+                searchIndex::addComment);
+        log.info("Search index built: {} posts, {} comments, {} terms in {}ms",
+                posts, comments, searchIndex.getTermCount(), System.currentTimeMillis() - start);
+    }
+
+    private int indexAll(Function<Long, List<Object[]>> batchLoader, BiConsumer<Long, String> indexer) {
+        int count = 0;
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = batchLoader.apply(afterId);
+            for (Object[] row : rows) {
+                indexer.accept((Long) row[0], (String) row[1]);
+                afterId = (Long) row[0];
+            }
+            count += rows.size();
+            if (rows.size() < REBUILD_BATCH_SIZE) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * 搜索帖子和评论
+     * @param type post、comment，null 表示全部
+     */
+    @Transactional(readOnly = true)
+    public Page<SearchResultDTO> search(String query, SearchIndex.DocType type, int page, int size, Long currentUserId) {
+        // 很大的页码直接视为超出范围，不能溢出成负数
+        int offset = (int) Math.min((long) page * size, Integer.MAX_VALUE);
+        SearchIndex.SearchResult result = searchIndex.search(query, type, offset, size);
+
+        List<Long> postIds = new ArrayList<>();
+        List<Long> commentIds = new ArrayList<>();
+        for (SearchIndex.Hit hit : result.hits) {
+            (hit.type == SearchIndex.DocType.POST ? postIds : commentIds).add(hit.id);
+        }
+
+        Map<Long, Post> posts = postIds.isEmpty() ? Collections.emptyMap()
+                : postRepository.findAllWithUserByIdIn(postIds).stream().collect(Collectors.toMap(Post::getId, p -> p));
+        Map<Long, Comment> comments = commentIds.isEmpty() ? Collections.emptyMap()
+                : commentRepository.findAllById(commentIds).stream().collect(Collectors.toMap(Comment::getId, c -> c));
+        Set<Long> likedPostIds = likedPostCache.likedAmong(currentUserId, postIds);
+
+        // 索引中存在但已被删除的内容直接跳过；帖子和评论各自批量转换，作者的计数不逐条查询
+        List<SearchIndex.Hit> hits = result.hits.stream()
+                .filter(hit -> (hit.type == SearchIndex.DocType.POST ? posts : comments).containsKey(hit.id))
+                .collect(Collectors.toList());
+        List<Post> hitPosts = new ArrayList<>();
+        List<Comment> hitComments = new ArrayList<>();
+        for (SearchIndex.Hit hit : hits) {
+            if (hit.type == SearchIndex.DocType.POST) {
+                hitPosts.add(posts.get(hit.id));
+            } else {
+                hitComments.add(comments.get(hit.id));
+            }
+        }
+        Iterator<PostDTO> postDTOs = postService.toDTOs(hitPosts, likedPostIds, FieldSelection.ALL).iterator();
+        Iterator<CommentDTO> commentDTOs = commentService.toDTOs(hitComments, FieldSelection.ALL).iterator();
+
+        // 按得分顺序组装
+        List<SearchResultDTO> content = new ArrayList<>(hits.size());
+        for (SearchIndex.Hit hit : hits) {
+            if (hit.type == SearchIndex.DocType.POST) {
+                content.add(SearchResultDTO.builder()
+                        .type("post")
+                        .score(hit.score)
+                        .postId(hit.id)
+                        .post(postDTOs.next())
+                        .build());
+            } else {
+                content.add(SearchResultDTO.builder()
+                        .type("comment")
+                        .score(hit.score)
+                        .postId(comments.get(hit.id).getPost().getId())
+                        .comment(commentDTOs.next())
+                        .build());
+            }
+        }
+        return new PageImpl<>(content, PageRequest.of(page, size), result.total);
+    }
+}
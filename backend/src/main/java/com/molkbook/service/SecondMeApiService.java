@@ -3,17 +3,25 @@ package com.molkbook.service;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.molkbook.config.Bulkhead;
 import com.molkbook.dto.SecondMeApiResponse;
 import com.molkbook.dto.SecondMeShade;
 import com.molkbook.dto.SecondMeUserInfo;
+import com.molkbook.metrics.SecondMeMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,7 +31,10 @@ import java.util.function.Consumer;
 @Slf4j
 public class SecondMeApiService {
 
-    private final WebClient webClient;
+    private final WebClient interactiveWebClient;
+    private final WebClient backgroundWebClient;
+    private final ConnectionProvider interactivePool;
+    private final ConnectionProvider backgroundPool;
     private final ObjectMapper objectMapper;
 
     @Value("${secondme.api.base-url}")
@@ -38,9 +49,35 @@ public class SecondMeApiService {
     @Value("${secondme.api.oauth.redirect-uri}")
     private String redirectUri;
 
-    public SecondMeApiService(ObjectMapper objectMapper) {
-        this.webClient = WebClient.builder()
+    /**
+     * 用户请求和后台定时任务各用一个连接池（隔离舱），后台任务最多占用 background-connections 个连接
+     * 连接池指标见 reactor.netty.connection.provider.*{name="secondme-interactive|secondme-background"}
+     */
+    public SecondMeApiService(ObjectMapper objectMapper, SecondMeMetrics secondMeMetrics,
+                              @Value("${secondme.api.pool.interactive-connections:64}") int interactiveConnections,
+                              @Value("${secondme.api.pool.background-connections:4}") int backgroundConnections,
+                              @Value("${secondme.api.pool.acquire-timeout-seconds:30}") long acquireTimeoutSeconds) {
+        this.interactivePool = connectionPool(Bulkhead.INTERACTIVE, interactiveConnections, acquireTimeoutSeconds);
+        this.backgroundPool = connectionPool(Bulkhead.BACKGROUND, backgroundConnections, acquireTimeoutSeconds);
+        this.interactiveWebClient = buildWebClient(interactivePool, secondMeMetrics.filter(Bulkhead.INTERACTIVE));
+        this.backgroundWebClient = buildWebClient(backgroundPool, secondMeMetrics.filter(Bulkhead.BACKGROUND));
+        this.objectMapper = objectMapper;
+    }
+
+    private static ConnectionProvider connectionPool(Bulkhead bulkhead, int maxConnections, long acquireTimeoutSeconds) {
+        return ConnectionProvider.builder("secondme-" + bulkhead.tag())
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofSeconds(acquireTimeoutSeconds))
+                .metrics(true)
+                .build();
+    }
+
+    private static WebClient buildWebClient(ConnectionProvider pool, ExchangeFilterFunction metricsFilter) {
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(pool)))
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
+                // 指标过滤器在最外层，才能看到错误处理过滤器转换后的异常
+                .filter(metricsFilter)
                 .filter((request, next) -> next.exchange(request)
                         .flatMap(response -> {
                             if (response.statusCode().isError()) {
@@ -54,7 +91,19 @@ public class SecondMeApiService {
                             return reactor.core.publisher.Mono.just(response);
                         }))
                 .build();
-        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 按当前线程所属的隔离舱选择连接池
+     */
+    private WebClient webClient() {
+        return Bulkhead.current() == Bulkhead.BACKGROUND ? backgroundWebClient : interactiveWebClient;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        interactivePool.dispose();
+        backgroundPool.dispose();
     }
 
     /**
@@ -68,7 +117,7 @@ public class SecondMeApiService {
                     "&client_id=" + clientId +
                     "&client_secret=" + clientSecret;
 
-            String response = webClient.post()
+            String response = webClient().post()
                     .uri(baseUrl + "/api/oauth/token/code")
                     .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                     .bodyValue(formBody)
@@ -99,7 +148,7 @@ public class SecondMeApiService {
     public SecondMeUserInfo getUserInfo(String token) {
         try {
             log.info("Getting user info from SecondMe API, token length: {}", token != null ? token.length() : 0);
-            String response = webClient.get()
+            String response = webClient().get()
                     .uri(baseUrl + "/api/secondme/user/info")
                     .header("Authorization", "Bearer " + token)
                     .retrieve()
@@ -126,7 +175,7 @@ public class SecondMeApiService {
      */
     public List<SecondMeShade> getUserShades(String token) {
         try {
-            String response = webClient.get()
+            String response = webClient().get()
                     .uri(baseUrl + "/api/secondme/user/shades")
                     .header("Authorization", "Bearer " + token)
                     .retrieve()
@@ -167,7 +216,7 @@ public class SecondMeApiService {
 
             StringBuilder result = new StringBuilder();
 
-            Flux<String> responseFlux = webClient.post()
+            Flux<String> responseFlux = webClient().post()
                     .uri(baseUrl + "/api/secondme/chat/stream")
                     .header("Authorization", "Bearer " + token)
                     .contentType(MediaType.APPLICATION_JSON)
@@ -176,24 +225,9 @@ public class SecondMeApiService {
                     .bodyToFlux(String.class);
 
             responseFlux.toStream().forEach(line -> {
-                if (line.startsWith("data: ")) {
-                    String data = line.substring(6);
-                    if (!"[DONE]".equals(data)) {
-                        try {
-                            JsonNode node = objectMapper.readTree(data);
-                            if (node.has("choices")) {
-                                JsonNode choices = node.get("choices");
-                                if (choices.isArray() && choices.size() > 0) {
-                                    JsonNode delta = choices.get(0).get("delta");
-                                    if (delta != null && delta.has("content")) {
-                                        result.append(delta.get("content").asText());
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            // Ignore parsing errors for individual chunks
-                        }
-                    }
+                String content = parseChunk(line);
+                if (content != null) {
+                    result.append(content);
                 }
             });
 
@@ -214,7 +248,7 @@ public class SecondMeApiService {
             body.put("systemPrompt", systemPrompt);
         }
 
-        return webClient.post()
+        return webClient().post()
                 .uri(baseUrl + "/api/secondme/chat/stream")
                 .header("Authorization", "Bearer " + token)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -222,27 +256,9 @@ public class SecondMeApiService {
                 .retrieve()
                 .bodyToFlux(String.class)
                 .flatMap(line -> {
-                    if (line.startsWith("data: ")) {
-                        String data = line.substring(6).trim();
-                        if (!"[DONE]".equals(data) && !data.isEmpty()) {
-                            try {
-                                JsonNode node = objectMapper.readTree(data);
-                                if (node.has("choices")) {
-                                    JsonNode choices = node.get("choices");
-                                    if (choices.isArray() && choices.size() > 0) {
-                                        JsonNode delta = choices.get(0).get("delta");
-                                        if (delta != null && delta.has("content")) {
-                                            String content = delta.get("content").asText();
-                                            if (!content.isEmpty()) {
-                                                return Flux.just(content);
-                                            }
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                log.debug("Error parsing chunk: {}", data);
-                            }
-                        }
+                    String content = parseChunk(line);
+                    if (content != null && !content.isEmpty()) {
+                        return Flux.just(content);
                     }
                     return Flux.empty();
                 })
@@ -268,9 +284,7 @@ public class SecondMeApiService {
             }
 
             // 使用 SSE 流式响应，收集所有内容
-            StringBuilder content = new StringBuilder();
-
-            String response = webClient.post()
+            String response = webClient().post()
                     .uri(baseUrl + "/api/secondme/chat/stream")
                     .header("Authorization", "Bearer " + token)
                     .contentType(MediaType.APPLICATION_JSON)
@@ -282,32 +296,7 @@ public class SecondMeApiService {
             log.debug("SecondMe chat response (first 500 chars): {}",
                     response != null && !response.isEmpty() ? response.substring(0, Math.min(500, response.length())) : "null");
 
-            if (response != null) {
-                String[] lines = response.split("\n");
-                for (String line : lines) {
-                    if (line.startsWith("data: ")) {
-                        String data = line.substring(6).trim();
-                        if (!"[DONE]".equals(data) && !data.isEmpty()) {
-                            try {
-                                JsonNode node = objectMapper.readTree(data);
-                                if (node.has("choices")) {
-                                    JsonNode choices = node.get("choices");
-                                    if (choices.isArray() && choices.size() > 0) {
-                                        JsonNode delta = choices.get(0).get("delta");
-                                        if (delta != null && delta.has("content")) {
-                                            content.append(delta.get("content").asText());
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                log.debug("Error parsing chunk: {}", data);
-                            }
-                        }
-                    }
-                }
-            }
-
-            String result = content.toString();
+            String result = collectContent(response);
             log.info("Chat result length: {}, content preview: {}",
                     result.length(),
                     result.isEmpty() ? "(empty)" : result.substring(0, Math.min(100, result.length())));
@@ -317,4 +306,54 @@ public class SecondMeApiService {
             return null;
         }
     }
+
+    /**
+     * 拼接完整 SSE 响应体中所有 chunk 的内容
+     */
+    String collectContent(String sseBody) {
+        StringBuilder content = new StringBuilder();
+        if (sseBody != null) {
+            for (String line : sseBody.split("\n")) {
+                String chunk = parseChunk(line);
+                if (chunk != null) {
+                    content.append(chunk);
+                }
+            }
+        }
+        return content.toString();
+    }
+
+    /**
+     * 解析单行 SSE 数据（"data: {...}"），返回 choices[0].delta.content
+     * 响应为 text/event-stream 时 WebClient 的 SSE 解码器已去掉 "data: " 前缀，直接是 JSON
+     * 非 data 行、[DONE] 或无法解析时返回 null
+     */
+    String parseChunk(String line) {
+        String data;
+        if (line.startsWith("data: ")) {
+            data = line.substring(6).trim();
+        } else if (line.startsWith("{")) {
+            data = line.trim();
+        } else {
+            return null;
+        }
+        if ("[DONE]".equals(data) || data.isEmpty()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(data);
+            if (node.has("choices")) {
+                JsonNode choices = node.get("choices");
+                if (choices.isArray() && choices.size() > 0) {
+                    JsonNode delta = choices.get(0).get("delta");
+                    if (delta != null && delta.has("content")) {
+                        return delta.get("content").asText();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Error parsing chunk: {}", data);
+        }
+        return null;
+    }
 }
@@ -0,0 +1,66 @@
+package com.molkbook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.molkbook.dto.CursorPageDTO;
+import com.molkbook.dto.PostDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 话题 Feed 首页缓存
+ * 首页承担了话题 Feed 的绝大部分流量；缓存的 DTO 不含当前用户的点赞状态，
+ * 点赞数和评论数最多滞后 TTL，新帖子发布后立即失效对应话题
+ */
+@Component
+public class TopicFeedCache {
+
+    private final int maxSize;
+    private final Cache<String, CursorPageDTO<PostDTO>> entries;
+
+    public TopicFeedCache(@Value("${topic-feed-cache.ttl-seconds:30}") long ttlSeconds,
+                          @Value("${topic-feed-cache.max-size:1000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, maxSize))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取话题首页，未命中时调用 loader 加载
+     * 加载不在缓存的锁内进行，同一话题并发未命中时各自加载一次
+     */
+    public CursorPageDTO<PostDTO> getFirstPage(String topic, int size, Supplier<CursorPageDTO<PostDTO>> loader) {
+        if (maxSize <= 0) {
+            return loader.get();
+        }
+
+        String key = topic + "|" + size;
+        CursorPageDTO<PostDTO> cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        CursorPageDTO<PostDTO> page = loader.get();
+        entries.put(key, page);
+        return page;
+    }
+
+    /**
+     * 话题有新帖子时使该话题所有分页大小的首页失效
+     */
+    public void invalidate(String topic) {
+        if (topic != null) {
+            String prefix = topic + "|";
+            entries.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    public Cache<String, CursorPageDTO<PostDTO>> getCache() {
+        return entries;
+    }
+}
@@ -0,0 +1,62 @@
+package com.molkbook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.molkbook.entity.User;
+import com.molkbook.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 用户实体的短 TTL 缓存
+ * 用户资料只在登录同步时变化，认证请求解析当前用户时不再每次查库；
+ * 缓存的是脱离 Session 的实体，只应读取基本字段，不要访问懒加载集合
+ */
+@Component
+@Slf4j
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, User> entries;
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${user-cache.ttl-seconds:60}") long ttlSeconds,
+                     @Value("${user-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 根据 ID 获取用户，优先读缓存；不存在的用户不缓存
+     */
+    public Optional<User> findById(Long userId) {
+        User cached = entries.getIfPresent(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findById(userId);
+        user.ifPresent(u -> entries.put(userId, u));
+        return user;
+    }
+
+    /**
+     * 用户资料变更后使缓存失效
+     */
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            entries.invalidate(userId);
+        }
+    }
+
+    public Cache<Long, User> getCache() {
+        return entries;
+    }
+}
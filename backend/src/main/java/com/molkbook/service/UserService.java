@@ -1,5 +1,8 @@
 package com.molkbook.service;
 
+import com.molkbook.config.TransactionHooks;
+import com.molkbook.datasource.ReadRouting;
+import com.molkbook.dto.FieldSelection;
 import com.molkbook.dto.SecondMeShade;
 import com.molkbook.dto.SecondMeUserInfo;
 import com.molkbook.dto.UserDTO;
@@ -9,13 +12,21 @@ import com.molkbook.repository.CommentRepository;
 import com.molkbook.repository.PostRepository;
 import com.molkbook.repository.UserRepository;
 import com.molkbook.repository.UserShadeRepository;
-import javax.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -27,6 +38,11 @@ public class UserService {
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
     private final SecondMeApiService secondMeApiService;
+    private final UserCache userCache;
+    private final ContentVersionTracker contentVersionTracker;
+    private final ReadRouting readRouting;
+
+    private static final int MAX_TOPIC_LENGTH = 100;  // posts.topic 列长度
 
     /**
      * 创建或更新用户的结果
@@ -73,6 +89,12 @@ public class UserService {
         user.setSelfIntroduction(userInfo.getSelfIntroduction());
 
         user = userRepository.save(user);
+        Long userId = user.getId();
+        TransactionHooks.afterCommit(() -> {
+            userCache.invalidate(userId);
+            contentVersionTracker.userChanged(userId);
+            readRouting.recordWrite(userId);
+        });
 
         // 同步用户兴趣标签
         syncUserShades(user, secondmeToken);
@@ -88,13 +110,55 @@ public class UserService {
         return createOrUpdateUserWithFlag(secondmeToken).user;
     }
 
+    /**
+     * 根据 SecondMe Token 快速创建或查找用户（登录关键路径，不调用 SecondMe API）
+     * 用户资料和兴趣标签由 ProfileSyncService 在后台补全
+     */
+    @Transactional
+    public CreateUserResult upsertUserByToken(String secondmeToken) {
+        Optional<User> existingUser = userRepository.findBySecondmeToken(secondmeToken);
+        if (existingUser.isPresent()) {
+            return new CreateUserResult(existingUser.get(), false);
+        }
+
+        User user = new User();
+        user.setSecondmeToken(secondmeToken);
+        return new CreateUserResult(userRepository.save(user), true);
+    }
+
+    /**
+     * 写入从 SecondMe 获取的用户资料和兴趣标签
+     */
+    @Transactional
+    public User applyProfile(Long userId, SecondMeUserInfo userInfo, List<SecondMeShade> shades) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
+
+        user.setName(userInfo.getName());
+        user.setEmail(userInfo.getEmail());
+        user.setAvatar(userInfo.getAvatar());
+        user.setBio(userInfo.getBio());
+        user.setSelfIntroduction(userInfo.getSelfIntroduction());
+        user = userRepository.save(user);
+        TransactionHooks.afterCommit(() -> {
+            userCache.invalidate(userId);
+            contentVersionTracker.userChanged(userId);
+            readRouting.recordWrite(userId);
+        });
+
+        replaceUserShades(user, shades);
+        return user;
+    }
+
     /**
      * 同步用户兴趣标签
      */
     @Transactional
     public void syncUserShades(User user, String token) {
-        List<SecondMeShade> shades = secondMeApiService.getUserShades(token);
+        replaceUserShades(user, secondMeApiService.getUserShades(token));
+    }
 
+    private void replaceUserShades(User user, List<SecondMeShade> shades) {
         // 删除旧的标签
         userShadeRepository.deleteByUserId(user.getId());
 
@@ -119,6 +183,31 @@ public class UserService {
         return userRepository.findById(id);
     }
 
+    /**
+     * 获取用户资料（含发帖数和评论数），在同一个只读事务中完成
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserDTO> getProfile(Long id) {
+        return getProfile(id, FieldSelection.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserDTO> getProfile(Long id, FieldSelection fields) {
+        return userRepository.findById(id).map(user -> toDTO(user, fields));
+    }
+
+    /**
+     * 批量获取用户资料，按 ids 的顺序返回，不存在的用户跳过
+     */
+    @Transactional(readOnly = true)
+    public List<UserDTO> getProfiles(List<Long> ids, FieldSelection fields) {
+        Map<Long, UserDTO> profiles = toDTOs(userRepository.findAllById(ids), fields);
+        return ids.stream()
+                .map(profiles::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     /**
      * 根据 SecondMe Token 获取用户
      */
@@ -168,20 +257,140 @@ public class UserService {
         return users.subList(0, limit);
     }
 
+    /**
+     * 为 AI 帖子挑选话题：从用户的兴趣标签中按置信度加权随机选一个，
+     * 置信度越高被选中的概率越大；没有兴趣标签时返回 null
+     */
+    public String pickPostTopic(Long userId) {
+        List<UserShade> shades = userShadeRepository.findByUserId(userId);
+        int totalWeight = 0;
+        int[] weights = new int[shades.size()];
+        for (int i = 0; i < shades.size(); i++) {
+            UserShade shade = shades.get(i);
+            if (shade.getShadeName() != null && !shade.getShadeName().isBlank()) {
+                weights[i] = confidenceWeight(shade.getConfidenceLevel());
+                totalWeight += weights[i];
+            }
+        }
+        if (totalWeight == 0) {
+            return null;
+        }
+
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < shades.size(); i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                String name = shades.get(i).getShadeName().trim();
+                return name.length() > MAX_TOPIC_LENGTH ? name.substring(0, MAX_TOPIC_LENGTH) : name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 兴趣标签置信度 -> 权重（1 ~ 5）
+     */
+    public static int confidenceWeight(String confidenceLevel) {
+        if (confidenceLevel == null) {
+            return 1;
+        }
+        switch (confidenceLevel) {
+            case "VERY_HIGH":
+                return 5;
+            case "HIGH":
+                return 4;
+            case "MEDIUM":
+                return 3;
+            case "LOW":
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
     /**
      * 转换为 DTO
      */
     public UserDTO toDTO(User user) {
-        return UserDTO.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .email(user.getEmail())
-                .avatar(user.getAvatar())
-                .bio(user.getBio())
-                .selfIntroduction(user.getSelfIntroduction())
-                .createdAt(user.getCreatedAt())
-                .postCount(postRepository.countByUserId(user.getId()))
-                .commentCount(commentRepository.countByUserId(user.getId()))
-                .build();
+        return toDTO(user, FieldSelection.ALL);
+    }
+
+    /**
+     * 只填充选择的字段，未选择发帖数 / 评论数时不查询
+     */
+    public UserDTO toDTO(User user, FieldSelection fields) {
+        return toDTO(user, fields,
+                fields.includes("postCount") ? postRepository.countByUserId(user.getId()) : null,
+                fields.includes("commentCount") ? commentRepository.countByUserId(user.getId()) : null);
+    }
+
+    /**
+     * 批量转换为 DTO，发帖数和评论数各用一次 GROUP BY 查询
+     * @return userId -> DTO
+     */
+    public Map<Long, UserDTO> toDTOs(Collection<User> users, FieldSelection fields) {
+        List<Long> userIds = users.stream().map(User::getId).distinct().collect(Collectors.toList());
+        // 尚未加载的懒加载代理一次查询载入持久化上下文，之后初始化代理不再逐个查询（读 id 不会初始化代理）
+        List<Long> unloaded = users.stream()
+                .filter(user -> !Hibernate.isInitialized(user))
+                .map(User::getId)
+                .distinct()
+                .collect(Collectors.toList());
+        if (!unloaded.isEmpty()) {
+            userRepository.findAllById(unloaded);
+        }
+        Map<Long, Long> postCounts = fields.includes("postCount") && !userIds.isEmpty()
+                ? countsById(postRepository.countByUserIds(userIds))
+                : Collections.emptyMap();
+        Map<Long, Long> commentCounts = fields.includes("commentCount") && !userIds.isEmpty()
+                ? countsById(commentRepository.countByUserIds(userIds))
+                : Collections.emptyMap();
+
+        Map<Long, UserDTO> result = new HashMap<>();
+        for (User user : users) {
+            result.computeIfAbsent(user.getId(), id -> toDTO(user, fields,
+                    postCounts.getOrDefault(id, 0L), commentCounts.getOrDefault(id, 0L)));
+        }
+        return result;
+    }
+
+    private static Map<Long, Long> countsById(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    private UserDTO toDTO(User user, FieldSelection fields, Long postCount, Long commentCount) {
+        UserDTO.UserDTOBuilder builder = UserDTO.builder();
+        if (fields.includes("id")) {
+            builder.id(user.getId());
+        }
+        if (fields.includes("name")) {
+            builder.name(user.getName());
+        }
+        if (fields.includes("email")) {
+            builder.email(user.getEmail());
+        }
+        if (fields.includes("avatar")) {
+            builder.avatar(user.getAvatar());
+        }
+        if (fields.includes("bio")) {
+            builder.bio(user.getBio());
+        }
+        if (fields.includes("selfIntroduction")) {
+            builder.selfIntroduction(user.getSelfIntroduction());
+        }
+        if (fields.includes("createdAt")) {
+            builder.createdAt(user.getCreatedAt());
+        }
+        if (fields.includes("postCount")) {
+            builder.postCount(postCount);
+        }
+        if (fields.includes("commentCount")) {
+            builder.commentCount(commentCount);
+        }
+        return builder.build();
     }
 }
@@ -0,0 +1,290 @@
+package com.molkbook.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内 SecondMe 模拟服务，用于压测和本地复现延迟问题
+ * 实现 OAuth 换 token、用户信息、兴趣标签和逐 token 推送的 chat/stream，
+ * 通过 stub profile 启用，secondme.api.base-url 指向该服务
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "secondme.stub.enabled", havingValue = "true")
+public class SecondMeStubServer {
+
+    static final String TOKEN_PREFIX = "stub-token-";
+
+    private static final String BODY_ATTRIBUTE = "stub.body";
+
+    private static final String[] SHADE_NAMES = {
+            "城市漫步", "独立音乐", "咖啡烘焙", "科幻小说", "摄影", "徒步", "开源软件", "电影", "烹饪", "桌游"
+    };
+    private static final String[] CONFIDENCE_LEVELS = {"VERY_HIGH", "HIGH", "MEDIUM", "LOW", "VERY_LOW"};
+    private static final String SAMPLE_TEXT =
+            "今天在街角发现了一家新开的小店，老板说他们只在周末营业，因为平时要去山里采茶。"
+                    + "我突然觉得这种节奏挺好的，不追赶什么，也不被什么追赶。你们有没有类似的发现？";
+
+    private final ObjectMapper objectMapper;
+    private final int port;
+    private final int threads;
+    private final long ttftMs;
+    private final long interTokenMs;
+    private final double errorRate;
+    private final int chatTokens;
+    private final int tokenChars;
+    private final int shadeCount;
+    private final int bioChars;
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public SecondMeStubServer(ObjectMapper objectMapper,
+                              @Value("${secondme.stub.port:18089}") int port,
+                              @Value("${secondme.stub.threads:200}") int threads,
+                              @Value("${secondme.stub.ttft-ms:300}") long ttftMs,
+                              @Value("${secondme.stub.inter-token-ms:30}") long interTokenMs,
+                              @Value("${secondme.stub.error-rate:0}") double errorRate,
+                              @Value("${secondme.stub.chat-tokens:80}") int chatTokens,
+                              @Value("${secondme.stub.token-chars:2}") int tokenChars,
+                              @Value("${secondme.stub.shade-count:5}") int shadeCount,
+                              @Value("${secondme.stub.bio-chars:60}") int bioChars) {
+        this.objectMapper = objectMapper;
+        this.port = port;
+        this.threads = threads;
+        this.ttftMs = ttftMs;
+        this.interTokenMs = interTokenMs;
+        this.errorRate = errorRate;
+        this.chatTokens = chatTokens;
+        this.tokenChars = Math.max(1, tokenChars);
+        this.shadeCount = shadeCount;
+        this.bioChars = bioChars;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 流式响应在 sleep 期间占用线程，线程数就是模拟服务能承受的最大并发流数
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "secondme-stub-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext("/api/oauth/token/code", guarded(this::handleTokenExchange, false));
+        server.createContext("/api/secondme/user/info", guarded(this::handleUserInfo, true));
+        server.createContext("/api/secondme/user/shades", guarded(this::handleUserShades, true));
+        server.createContext("/api/secondme/chat/stream", guarded(this::handleChatStream, true));
+        server.setExecutor(executor);
+        server.start();
+
+        log.info("SecondMe stub listening on http://127.0.0.1:{} (ttft={}ms, interToken={}ms, tokens={}, errorRate={})",
+                port, ttftMs, interTokenMs, chatTokens, errorRate);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        log.info("SecondMe stub stopped after {} requests", requestCount.get());
+    }
+
+    /**
+     * 统一处理鉴权、错误注入和异常，具体接口只负责生成响应
+     */
+    private HttpHandler guarded(HttpHandler handler, boolean requireAuth) {
+        return exchange -> {
+            requestCount.incrementAndGet();
+            try {
+                exchange.setAttribute(BODY_ATTRIBUTE,
+                        new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                if (requireAuth) {
+                    String auth = exchange.getRequestHeaders().getFirst("Authorization");
+                    if (auth == null || !auth.startsWith("Bearer ")) {
+                        sendJson(exchange, 401, error(401, "Missing bearer token"));
+                        return;
+                    }
+                }
+                if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    sendJson(exchange, 500, error(500, "Injected stub error"));
+                    return;
+                }
+                handler.handle(exchange);
+            } catch (Exception e) {
+                log.debug("Stub request {} failed: {}", exchange.getRequestURI(), e.getMessage());
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private void handleTokenExchange(HttpExchange exchange) throws IOException {
+        String code = formParams(exchange).get("code");
+        if (code == null || code.isEmpty()) {
+            sendJson(exchange, 400, error(400, "Missing authorization code"));
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("accessToken", TOKEN_PREFIX + code);
+        data.put("tokenType", "Bearer");
+        data.put("expiresIn", 7200);
+        sendJson(exchange, 200, ok(data));
+    }
+
+    private void handleUserInfo(HttpExchange exchange) throws IOException {
+        String id = subject(exchange);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", "模拟用户-" + id);
+        data.put("email", id + "@stub.molkbook.local");
+        data.put("avatar", "https://example.com/avatar/" + id + ".png");
+        data.put("bio", text(bioChars, 0));
+        data.put("selfIntroduction", text(bioChars * 2, 7));
+        data.put("profileCompleteness", 80);
+        sendJson(exchange, 200, ok(data));
+    }
+
+    private void handleUserShades(HttpExchange exchange) throws IOException {
+        List<Map<String, Object>> shades = new ArrayList<>();
+        for (int i = 0; i < shadeCount; i++) {
+            String name = SHADE_NAMES[i % SHADE_NAMES.length];
+            Map<String, Object> shade = new LinkedHashMap<>();
+            shade.put("id", (long) i + 1);
+            shade.put("shadeName", name);
+            shade.put("confidenceLevel", CONFIDENCE_LEVELS[i % CONFIDENCE_LEVELS.length]);
+            shade.put("shadeDescription", "对" + name + "有持续的兴趣");
+            shade.put("shadeContent", text(bioChars, i));
+            shade.put("sourceTopics", List.of(name));
+            // 应用只保存公开的兴趣标签
+            shade.put("hasPublicContent", true);
+            shade.put("shadeNamePublic", name);
+            shade.put("confidenceLevelPublic", shade.get("confidenceLevel"));
+            shades.add(shade);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("shades", shades);
+        sendJson(exchange, 200, ok(data));
+    }
+
+    /**
+     * 逐 token 推送 SSE：首 token 前等待 ttft-ms，之后每个 token 间隔 inter-token-ms
+     */
+    private void handleChatStream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream;charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream out = exchange.getResponseBody();
+        sleep(ttftMs);
+        for (int i = 0; i < chatTokens; i++) {
+            if (i > 0) {
+                sleep(interTokenMs);
+            }
+            Map<String, Object> delta = Map.of("content", text(tokenChars, i * tokenChars));
+            Map<String, Object> chunk = Map.of("choices", List.of(Map.of("delta", delta)));
+            writeEvent(out, objectMapper.writeValueAsString(chunk));
+        }
+        writeEvent(out, "[DONE]");
+    }
+
+    private void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private Map<String, Object> ok(Object data) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", 0);
+        body.put("data", data);
+        return body;
+    }
+
+    private Map<String, Object> error(int code, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", code);
+        body.put("message", message);
+        return body;
+    }
+
+    /**
+     * 从 Bearer token 中取出用户标识，同一个授权码始终对应同一个模拟用户
+     */
+    private String subject(HttpExchange exchange) {
+        String token = exchange.getRequestHeaders().getFirst("Authorization").substring(7);
+        return token.startsWith(TOKEN_PREFIX) ? token.substring(TOKEN_PREFIX.length()) : Integer.toHexString(token.hashCode());
+    }
+
+    private Map<String, String> formParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String body = (String) exchange.getAttribute(BODY_ATTRIBUTE);
+        if (body == null) {
+            return params;
+        }
+        for (String pair : body.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * 循环截取示例文本，生成指定长度的内容
+     */
+    private static String text(int length, int offset) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(SAMPLE_TEXT.charAt((offset + i) % SAMPLE_TEXT.length()));
+        }
+        return sb.toString();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -29,7 +29,9 @@ CREATE TABLE IF NOT EXISTS posts (
     INDEX idx_user_id (user_id),
     INDEX idx_created_at (created_at DESC),
     INDEX idx_like_count (like_count DESC),
-    INDEX idx_comment_count (comment_count DESC)
+    INDEX idx_comment_count (comment_count DESC),
+    -- 话题 Feed 的 keyset 分页索引；已有的表由 Post 实体上的 @Index 经 ddl-auto 补建
+    INDEX idx_topic_created_at (topic, created_at, id)
 );
 
 -- 评论表
@@ -37,14 +39,22 @@ CREATE TABLE IF NOT EXISTS comments (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
     post_id BIGINT NOT NULL,
     user_id BIGINT NOT NULL,
+    parent_id BIGINT,
+    root_id BIGINT,
+    depth INT DEFAULT 0,
+    path VARCHAR(255),
     content TEXT NOT NULL,
     ai_generated BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (parent_id) REFERENCES comments(id) ON DELETE CASCADE,
     INDEX idx_post_id (post_id),
     INDEX idx_user_id (user_id),
-    INDEX idx_created_at (created_at)
+    INDEX idx_created_at (created_at),
+    INDEX idx_parent_id (parent_id),
+    -- 物化路径：线程内按 path 排序即展示顺序，子树为 path 范围扫描
+    INDEX idx_root_path (root_id, path)
 );
 
 -- 帖子点赞表
@@ -71,3 +81,10 @@ CREATE TABLE IF NOT EXISTS user_shades (
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     INDEX idx_user_id (user_id)
 );
+
+-- 内容版本戳（条件请求的 ETag），多实例之间经此表同步
+CREATE TABLE IF NOT EXISTS content_versions (
+    content_key VARCHAR(40) PRIMARY KEY,
+    version BIGINT NOT NULL,
+    INDEX idx_version (version)
+);
@@ -0,0 +1,122 @@
+package com.molkbook.controller;
+
+import com.molkbook.entity.Comment;
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.metrics.SqlStatementCounter;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserRepository;
+import com.molkbook.service.CommentService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 帖子详情和评论接口的 SQL 语句数上限，防止评论作者 / 被回复用户的 N+1 查询回归
+ * 10 个线程，每个线程一条 4 层的回复链，作者各不相同；每次请求前清空二级缓存
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false",
+        "sql-count.repeat-threshold=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CommentSqlStatementTest {
+
+    private static final int THREADS = 10;
+    private static final int CHAIN_LENGTH = 4;
+    // 帖子、帖子作者、作者发帖数 / 评论数、线程页、回复预览、回复数、评论者、评论者发帖数 / 评论数；与评论数无关
+    private static final int MAX_DETAIL_STATEMENTS = 10;
+    // 线程页、回复预览、回复数、评论者、评论者发帖数 / 评论数
+    private static final int MAX_THREAD_STATEMENTS = 6;
+    // 线程评论、子树页、评论者、评论者发帖数 / 评论数
+    private static final int MAX_REPLY_STATEMENTS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Post post;
+    private Comment firstThread;
+
+    @BeforeAll
+    void seed() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < THREADS * (CHAIN_LENGTH + 1) + 1; i++) {
+            users.add(userRepository.save(User.builder()
+                    .secondmeToken("comment-sql-" + i)
+                    .name("commenter-" + i)
+                    .build()));
+        }
+        post = postRepository.save(Post.builder().user(users.get(0)).content("thread post").topic("tech").build());
+        int next = 1;
+        for (int t = 0; t < THREADS; t++) {
+            Comment parent = commentService.createComment(post, users.get(next++), "thread " + t);
+            if (t == 0) {
+                firstThread = parent;
+            }
+            for (int d = 0; d < CHAIN_LENGTH; d++) {
+                parent = commentService.createReply(post, users.get(next++), "reply " + t + "-" + d, parent);
+            }
+        }
+    }
+
+    @BeforeEach
+    void evictSecondLevelCache() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void postDetailHasBoundedStatements() throws Exception {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/posts/" + post.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.comments.length()").value(THREADS));
+            scope.assertAtMost(MAX_DETAIL_STATEMENTS);
+        }
+    }
+
+    @Test
+    void commentPageHasBoundedStatements() throws Exception {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/posts/" + post.getId() + "/comments"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(THREADS));
+            scope.assertAtMost(MAX_THREAD_STATEMENTS);
+        }
+    }
+
+    @Test
+    void repliesPageHasBoundedStatements() throws Exception {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/posts/" + post.getId() + "/comments/" + firstThread.getId() + "/replies"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(CHAIN_LENGTH))
+                    .andExpect(jsonPath("$.content[3].replyToUser.name").exists());
+            scope.assertAtMost(MAX_REPLY_STATEMENTS);
+        }
+    }
+}
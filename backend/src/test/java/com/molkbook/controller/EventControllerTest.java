@@ -0,0 +1,37 @@
+package com.molkbook.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 订阅数已满时返回 200 的空事件流，EventSource 按 retry 间隔重连而不是永久失败
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false",
+        "events.max-subscribers=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+class EventControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void atCapacityTellsClientToRetryLater() throws Exception {
+        mockMvc.perform(get("/api/events"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string("retry: 30000\n\n"));
+    }
+}
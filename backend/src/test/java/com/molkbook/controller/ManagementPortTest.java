@@ -0,0 +1,51 @@
+package com.molkbook.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Actuator 只在管理端口上提供，API 端口上访问不到指标
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false",
+        "management.server.port=0"
+})
+@ActiveProfiles("local")
+class ManagementPortTest {
+
+    @LocalServerPort
+    private int serverPort;
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void metricsAreNotServedOnApiPort() {
+        for (String endpoint : new String[]{"prometheus", "metrics"}) {
+            ResponseEntity<String> response = restTemplate.getForEntity(
+                    "http://localhost:" + serverPort + "/actuator/" + endpoint, String.class);
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        }
+    }
+
+    @Test
+    void metricsAreServedOnManagementPort() {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + managementPort + "/actuator/metrics", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"names\""));
+    }
+}
@@ -0,0 +1,42 @@
+package com.molkbook.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 同时带 topic 和 ids 时按话题 Feed 处理，不因映射冲突返回 500
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false",
+        "sql-count.repeat-threshold=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+class PostBatchMappingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void topicTakesPrecedenceOverIds() throws Exception {
+        mockMvc.perform(get("/api/posts").param("topic", "tech").param("ids", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray());
+    }
+
+    @Test
+    void idsAloneReturnsBatch() throws Exception {
+        mockMvc.perform(get("/api/posts").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray());
+    }
+}
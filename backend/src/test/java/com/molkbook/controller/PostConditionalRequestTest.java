@@ -0,0 +1,66 @@
+package com.molkbook.controller;
+
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserRepository;
+import com.molkbook.service.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 条件请求只按 ETag 判断；Last-Modified 只精确到秒，同一秒内的修改不能返回 304
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false",
+        "sql-count.repeat-threshold=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+class PostConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private PostService postService;
+
+    @Test
+    void changedPostIsNotReportedUnmodified() throws Exception {
+        User author = userRepository.save(User.builder().secondmeToken("etag-author").name("author").build());
+        User liker = userRepository.save(User.builder().secondmeToken("etag-liker").name("liker").build());
+        Post post = postRepository.save(Post.builder().user(author).content("hello").topic("tech").build());
+        String url = "/api/posts/" + post.getId();
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        postService.likePost(post.getId(), liker);
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(url).header(HttpHeaders.IF_MODIFIED_SINCE,
+                        ZonedDateTime.now().plusMinutes(1).format(DateTimeFormatter.RFC_1123_DATE_TIME)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,139 @@
+package com.molkbook.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.molkbook.config.JwtUtil;
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.metrics.SqlStatementCounter;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserRepository;
+import com.molkbook.service.CommentService;
+import com.molkbook.service.PostService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Feed 接口的 SQL 语句数上限，防止 N+1 查询回归
+ * 每页 20 个帖子，作者、点赞、评论各不相同；语句数不应随帖子数增长
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false",
+        "sql-count.repeat-threshold=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostFeedSqlStatementTest {
+
+    private static final int PAGE_SIZE = 20;
+    // 帖子页（含作者）、总数、作者发帖数 / 评论数、点赞集合；与帖子数无关
+    private static final int MAX_STATEMENTS = 5;
+    // 帖子页（含作者）、作者发帖数 / 评论数；话题 Feed 不做 count 查询
+    private static final int MAX_TOPIC_STATEMENTS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private User viewer;
+
+    @BeforeAll
+    void seed() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            users.add(userRepository.save(User.builder()
+                    .secondmeToken("token-" + i)
+                    .name("user-" + i)
+                    .build()));
+        }
+        viewer = users.get(0);
+        for (int i = 0; i < PAGE_SIZE * 2; i++) {
+            User author = users.get(i % users.size());
+            Post post = postRepository.save(Post.builder()
+                    .user(author)
+                    .content("post " + i)
+                    .topic("tech")
+                    .build());
+            commentService.createComment(post, users.get((i + 1) % users.size()), "comment " + i);
+            if (i % 2 == 0) {
+                postService.likePost(post.getId(), viewer);
+            }
+        }
+    }
+
+    @Test
+    void anonymousFeedPageHasBoundedStatements() throws Exception {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/posts").param("size", String.valueOf(PAGE_SIZE)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE));
+            scope.assertAtMost(MAX_STATEMENTS);
+        }
+    }
+
+    @Test
+    void authenticatedFeedPageHasBoundedStatements() throws Exception {
+        String token = jwtUtil.generateToken(viewer.getId());
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/posts").param("size", String.valueOf(PAGE_SIZE))
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE));
+            scope.assertAtMost(MAX_STATEMENTS);
+        }
+    }
+
+    @Test
+    void partialFieldsFeedPageHasBoundedStatements() throws Exception {
+        String token = jwtUtil.generateToken(viewer.getId());
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/posts").param("size", String.valueOf(PAGE_SIZE))
+                            .param("sortBy", "likes")
+                            .param("fields", "id,liked,user(id,name,postCount)")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE));
+            scope.assertAtMost(MAX_STATEMENTS);
+        }
+    }
+
+    @Test
+    void topicCursorPageHasBoundedStatements() throws Exception {
+        String body = mockMvc.perform(get("/api/posts").param("topic", "tech").param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.nextCursor");
+        // 游标页不经过 TopicFeedCache，每次都查询数据库
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/posts").param("topic", "tech").param("cursor", cursor)
+                            .param("size", String.valueOf(PAGE_SIZE)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE));
+            scope.assertAtMost(MAX_TOPIC_STATEMENTS);
+        }
+    }
+}
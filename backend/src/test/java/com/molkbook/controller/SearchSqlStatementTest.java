@@ -0,0 +1,109 @@
+package com.molkbook.controller;
+
+import com.molkbook.config.JwtUtil;
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.metrics.SqlStatementCounter;
+import com.molkbook.repository.UserRepository;
+import com.molkbook.service.CommentService;
+import com.molkbook.service.PostService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 搜索接口的 SQL 语句数上限，防止逐条转换命中结果的 N+1 查询回归
+ * 命中的帖子和评论作者各不相同；语句数不应随命中数增长
+ * 其他测试上下文会重建共享的内存库，id 被复用后缓存上下文中的索引与数据不一致，因此使用单独的库
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false",
+        "sql-count.repeat-threshold=0",
+        "spring.datasource.url=jdbc:h2:mem:search-sql;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SearchSqlStatementTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final String TERM = "zephyrquartz";
+    // 帖子（含作者）、评论、评论作者、帖子作者和评论作者各自的发帖数 / 评论数；与命中数无关
+    private static final int MAX_STATEMENTS = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private User viewer;
+
+    @BeforeAll
+    void seed() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            users.add(userRepository.save(User.builder()
+                    .secondmeToken("search-sql-" + i)
+                    .name("searcher-" + i)
+                    .build()));
+        }
+        viewer = users.get(0);
+        for (int i = 0; i < PAGE_SIZE / 2; i++) {
+            Post post = postService.createPost(users.get(i), TERM + " post " + i, "tech");
+            commentService.createComment(post, users.get(PAGE_SIZE - 1 - i), TERM + " comment " + i);
+            if (i % 2 == 0) {
+                postService.likePost(post.getId(), viewer);
+            }
+        }
+    }
+
+    @Test
+    void anonymousSearchHasBoundedStatements() throws Exception {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/search").param("q", TERM).param("size", String.valueOf(PAGE_SIZE)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE));
+            scope.assertAtMost(MAX_STATEMENTS);
+        }
+    }
+
+    @Test
+    void authenticatedSearchHasBoundedStatements() throws Exception {
+        String token = jwtUtil.generateToken(viewer.getId());
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/search").param("q", TERM).param("size", String.valueOf(PAGE_SIZE))
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE));
+            scope.assertAtMost(MAX_STATEMENTS);
+        }
+    }
+
+    @Test
+    void pageBeyondIntRangeIsEmpty() throws Exception {
+        mockMvc.perform(get("/api/search").param("q", TERM)
+                        .param("page", "107374183").param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(0));
+    }
+}
@@ -0,0 +1,228 @@
+package com.molkbook.datasource;
+
+import com.molkbook.config.JwtUtil;
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserRepository;
+import com.molkbook.service.ContentVersionTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 读写分离路由：主库和从库是两个独立的 H2 库，从库复制主库的表和数据后多一条只在从库存在的标记帖子，
+ * 能读到标记帖子说明这次读取走了从库
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false",
+        "spring.datasource.url=" + ReadRoutingTest.PRIMARY_URL,
+        "datasource.replicas=" + ReadRoutingTest.REPLICA_URL,
+        "datasource.lag-query=SELECT seconds FROM replica_lag",
+        "datasource.lag-probe-interval-ms=3600000",
+        "datasource.max-lag-seconds=1",
+        "datasource.sticky-seconds=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL";
+
+    private static final long MARKER_POST_ID = 1_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+    @Autowired
+    private ReadRouting readRouting;
+    @Autowired
+    private ReadRoutingFilter readRoutingFilter;
+    @Autowired
+    private ContentVersionTracker contentVersionTracker;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User writer;
+    private User reader;
+    private Post shared;
+
+    @BeforeAll
+    void seed() throws SQLException {
+        writer = userRepository.save(User.builder().secondmeToken("routing-writer").name("writer").build());
+        reader = userRepository.save(User.builder().secondmeToken("routing-reader").name("reader").build());
+        shared = postRepository.save(Post.builder().user(writer).content("shared").topic("tech").build());
+
+        List<String> script = new ArrayList<>();
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement();
+             ResultSet rs = statement.executeQuery("SCRIPT")) {
+            while (rs.next()) {
+                script.add(rs.getString(1));
+            }
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+            statement.execute("INSERT INTO posts (id, user_id, content, topic, ai_generated, like_count, comment_count, created_at) "
+                    + "VALUES (" + MARKER_POST_ID + ", " + writer.getId() + ", 'replica only', 'tech', FALSE, 0, 0, CURRENT_TIMESTAMP)");
+            statement.execute("CREATE TABLE replica_lag (seconds BIGINT)");
+            statement.execute("INSERT INTO replica_lag VALUES (0)");
+        }
+    }
+
+    @BeforeEach
+    void replicaInRotation() throws SQLException {
+        executeOnReplica("UPDATE replica_lag SET seconds = 0");
+        replicaRoutingDataSource.probeLag();
+    }
+
+    @AfterEach
+    void clearRouting() {
+        ReadRouting.clear();
+    }
+
+    @Test
+    void readOnlyTransactionsReadTheReplica() {
+        assertTrue(seesMarker(true));
+        assertFalse(seesMarker(false));
+    }
+
+    @Test
+    void requirePrimaryReadsThePrimary() {
+        assertFalse(ReadRouting.onPrimary(() -> seesMarker(true)));
+
+        ReadRouting.requirePrimary();
+        assertFalse(seesMarker(true));
+        ReadRouting.clear();
+        assertTrue(seesMarker(true));
+    }
+
+    @Test
+    void unsafeMethodsReadThePrimary() throws Exception {
+        assertTrue(seesMarkerThroughFilter(new MockHttpServletRequest("GET", "/api/posts")));
+        assertFalse(seesMarkerThroughFilter(new MockHttpServletRequest("POST", "/api/posts/create")));
+        assertFalse(ReadRouting.isPrimaryRequired());
+    }
+
+    @Test
+    void recentWriterReadsThePrimaryUntilStickyWindowEnds() throws Exception {
+        String markerUrl = "/api/posts/" + MARKER_POST_ID;
+        String writerToken = "Bearer " + jwtUtil.generateToken(writer.getId());
+        String readerToken = "Bearer " + jwtUtil.generateToken(reader.getId());
+
+        readRouting.recordWrite(writer.getId());
+
+        mockMvc.perform(get(markerUrl).header(HttpHeaders.AUTHORIZATION, writerToken))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(markerUrl).header(HttpHeaders.AUTHORIZATION, readerToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(markerUrl))
+                .andExpect(status().isOk());
+
+        Thread.sleep(1100);
+
+        mockMvc.perform(get(markerUrl).header(HttpHeaders.AUTHORIZATION, writerToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void failingLagProbeTakesReplicaOutOfRotation() throws SQLException {
+        executeOnReplica("UPDATE replica_lag SET seconds = 60");
+        replicaRoutingDataSource.probeLag();
+        assertFalse(seesMarker(true));
+
+        executeOnReplica("UPDATE replica_lag SET seconds = 0");
+        replicaRoutingDataSource.probeLag();
+        assertTrue(seesMarker(true));
+
+        executeOnReplica("ALTER TABLE replica_lag RENAME TO replica_lag_broken");
+        try {
+            replicaRoutingDataSource.probeLag();
+            assertFalse(seesMarker(true));
+        } finally {
+            executeOnReplica("ALTER TABLE replica_lag_broken RENAME TO replica_lag");
+        }
+        replicaRoutingDataSource.probeLag();
+        assertTrue(seesMarker(true));
+    }
+
+    @Test
+    void etagIsWithheldUntilChangeIsReplicated() throws Exception {
+        String url = "/api/posts/" + shared.getId();
+        contentVersionTracker.postChanged(shared.getId());
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        // 读主库的请求看到的就是最新内容，可以带 ETag
+        readRouting.recordWrite(writer.getId());
+        mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.generateToken(writer.getId())))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+
+        Thread.sleep(1100);
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    private boolean seesMarker(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return Boolean.TRUE.equals(template.execute(status -> postRepository.findById(MARKER_POST_ID).isPresent()));
+    }
+
+    private boolean seesMarkerThroughFilter(MockHttpServletRequest request) throws Exception {
+        AtomicBoolean seen = new AtomicBoolean();
+        readRoutingFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> seen.set(seesMarker(true)));
+        return seen.get();
+    }
+
+    private static void executeOnReplica(String sql) throws SQLException {
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
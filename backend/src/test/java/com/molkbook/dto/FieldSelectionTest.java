@@ -0,0 +1,74 @@
+package com.molkbook.dto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldSelectionTest {
+
+    @Test
+    void blankSpecSelectsEverything() {
+        assertSame(FieldSelection.ALL, FieldSelection.parse(null));
+        assertSame(FieldSelection.ALL, FieldSelection.parse(""));
+        assertSame(FieldSelection.ALL, FieldSelection.parse("   "));
+        assertTrue(FieldSelection.ALL.includes("anything"));
+        assertSame(FieldSelection.ALL, FieldSelection.ALL.nested("user"));
+    }
+
+    @Test
+    void selectsListedFieldsOnly() {
+        FieldSelection fields = FieldSelection.parse("id,content,likeCount");
+
+        assertFalse(fields.isAll());
+        assertTrue(fields.includes("id"));
+        assertTrue(fields.includes("content"));
+        assertTrue(fields.includes("likeCount"));
+        assertFalse(fields.includes("user"));
+    }
+
+    @Test
+    void parsesNestedSelections() {
+        FieldSelection fields = FieldSelection.parse("id,user(id,name,avatar),replies(id,user(name))");
+
+        FieldSelection user = fields.nested("user");
+        assertTrue(user.includes("avatar"));
+        assertFalse(user.includes("postCount"));
+
+        FieldSelection replyUser = fields.nested("replies").nested("user");
+        assertTrue(replyUser.includes("name"));
+        assertFalse(replyUser.includes("id"));
+    }
+
+    @Test
+    void nestedFieldWithoutParenthesesSelectsAllOfIt() {
+        FieldSelection fields = FieldSelection.parse("id,user");
+
+        assertTrue(fields.nested("user").isAll());
+    }
+
+    @Test
+    void toleratesSpaces() {
+        FieldSelection fields = FieldSelection.parse(" id , user ( id , name ) ");
+
+        assertTrue(fields.includes("id"));
+        assertTrue(fields.nested("user").includes("name"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "id,", ",id", "id,,content", "user(", "user(id", "user()", "user(id))", "id)", "id content", "id;content", "user(id,)"
+    })
+    void rejectsMalformedSpecs(String spec) {
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.parse(spec));
+    }
+
+    @Test
+    void rejectsOverlongSpecs() {
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.parse("a,".repeat(600) + "a"));
+    }
+}
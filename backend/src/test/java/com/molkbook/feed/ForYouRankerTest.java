@@ -0,0 +1,149 @@
+package com.molkbook.feed;
+
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.entity.UserShade;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserShadeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ForYouRankerTest {
+
+    private static final long VIEWER_ID = 100L;
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final UserShadeRepository userShadeRepository = mock(UserShadeRepository.class);
+    private final ForYouRanker ranker = new ForYouRanker(postRepository, userShadeRepository,
+            new SimpleMeterRegistry(), 100, 100, 24);
+
+    private final List<Post> recent = new ArrayList<>();
+    private final List<Post> hot = new ArrayList<>();
+    private final List<UserShade> authorShades = new ArrayList<>();
+
+    @Test
+    void anonymousRankingPrefersFreshPosts() {
+        recent.add(post(1L, 1L, null, 48, 0, 0));
+        recent.add(post(2L, 2L, null, 1, 0, 0));
+
+        assertEquals(List.of(2L, 1L), rank(null));
+    }
+
+    @Test
+    void engagementBreaksTiesBetweenEquallyFreshPosts() {
+        recent.add(post(1L, 1L, null, 2, 1, 0));
+        recent.add(post(2L, 2L, null, 2, 0, 5));
+
+        assertEquals(List.of(2L, 1L), rank(null));
+    }
+
+    @Test
+    void interestsOutweighSmallFreshnessDifferences() {
+        recent.add(post(1L, 1L, "科幻小说", 6, 0, 0));
+        recent.add(post(2L, 2L, "烹饪", 1, 0, 0));
+        when(userShadeRepository.findByUserId(VIEWER_ID)).thenReturn(List.of(shade(VIEWER_ID, "科幻", "HIGH")));
+
+        assertEquals(List.of(1L, 2L), rank(VIEWER_ID));
+        assertEquals(List.of(2L, 1L), rank(null));
+    }
+
+    @Test
+    void authorShadesCountTowardsSimilarity() {
+        recent.add(post(1L, 1L, null, 1, 0, 0));
+        recent.add(post(2L, 2L, null, 1, 0, 0));
+        authorShades.add(shade(2L, "徒步", "VERY_HIGH"));
+        when(userShadeRepository.findByUserId(VIEWER_ID)).thenReturn(List.of(shade(VIEWER_ID, "长距离徒步", "HIGH")));
+
+        assertEquals(2L, rank(VIEWER_ID).get(0));
+    }
+
+    @Test
+    void viewerTermsOutsideSnapshotAreNotInterned() {
+        CandidateSnapshot snapshot = CandidateSnapshot.build(List.of(post(1L, 1L, "科幻", 1, 0, 0)),
+                Map.of(), 24, System.currentTimeMillis());
+        int terms = snapshot.termCount();
+
+        assertTrue(snapshot.interests(List.of(shade(VIEWER_ID, "烹饪美食", "HIGH"))).isEmpty());
+        assertFalse(snapshot.interests(List.of(shade(VIEWER_ID, "科幻", "HIGH"))).isEmpty());
+        assertEquals(terms, snapshot.termCount());
+    }
+
+    @Test
+    void excludesViewersOwnPosts() {
+        recent.add(post(1L, VIEWER_ID, null, 1, 0, 0));
+        recent.add(post(2L, 2L, null, 1, 0, 0));
+
+        ForYouRanker.RankedPage page = rankPage(VIEWER_ID, 0, 10);
+
+        assertEquals(List.of(2L), page.postIds);
+        assertEquals(1, page.total);
+    }
+
+    @Test
+    void recentAndHotCandidatesAreDeduplicated() {
+        Post both = post(1L, 1L, null, 1, 10, 10);
+        recent.add(both);
+        hot.add(both);
+        hot.add(post(2L, 2L, null, 200, 5, 5));
+
+        assertEquals(2, rankPage(null, 0, 10).total);
+    }
+
+    @Test
+    void paginatesAndReportsTotal() {
+        for (long id = 1; id <= 5; id++) {
+            recent.add(post(id, id, null, id, 0, 0));
+        }
+
+        assertEquals(List.of(3L, 4L), rankPage(null, 2, 2).postIds);
+        ForYouRanker.RankedPage past = rankPage(null, 10, 2);
+        assertTrue(past.postIds.isEmpty());
+        assertEquals(5, past.total);
+    }
+
+    private List<Long> rank(Long userId) {
+        return rankPage(userId, 0, 10).postIds;
+    }
+
+    private ForYouRanker.RankedPage rankPage(Long userId, int offset, int limit) {
+        when(postRepository.findRecentPosts(any(Pageable.class))).thenReturn(recent);
+        when(postRepository.findAllByHotness(any(Pageable.class))).thenReturn(new PageImpl<>(hot));
+        when(userShadeRepository.findByUserIdIn(anyCollection())).thenReturn(authorShades);
+        ranker.refresh();
+        return ranker.rank(userId, offset, limit);
+    }
+
+    private static Post post(long id, long authorId, String topic, long ageHours, int likes, int comments) {
+        return Post.builder()
+                .id(id)
+                .user(User.builder().id(authorId).build())
+                .topic(topic)
+                .likeCount(likes)
+                .commentCount(comments)
+                .createdAt(LocalDateTime.now().minusHours(ageHours))
+                .build();
+    }
+
+    private static UserShade shade(long userId, String name, String confidence) {
+        return UserShade.builder()
+                .user(User.builder().id(userId).build())
+                .shadeName(name)
+                .confidenceLevel(confidence)
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.molkbook.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SparseVectorTest {
+
+    private static final float EPSILON = 1e-6f;
+
+    @Test
+    void isNormalized() {
+        SparseVector vector = SparseVector.of(Map.of(1, 3f, 2, 4f));
+
+        assertEquals(1f, vector.dot(vector), EPSILON);
+    }
+
+    @Test
+    void dotIsCosineSimilarity() {
+        SparseVector a = SparseVector.of(Map.of(1, 1f, 2, 1f));
+        SparseVector b = SparseVector.of(Map.of(2, 1f, 3, 1f));
+
+        assertEquals(0.5f, a.dot(b), EPSILON);
+        assertEquals(a.dot(b), b.dot(a), EPSILON);
+    }
+
+    @Test
+    void disjointVectorsAreOrthogonal() {
+        SparseVector a = SparseVector.of(Map.of(1, 2f, 5, 1f));
+        SparseVector b = SparseVector.of(Map.of(2, 1f, 4, 3f, 6, 1f));
+
+        assertEquals(0f, a.dot(b), EPSILON);
+    }
+
+    @Test
+    void scaleDoesNotChangeSimilarity() {
+        SparseVector a = SparseVector.of(Map.of(10, 1f, 20, 2f));
+        SparseVector scaled = SparseVector.of(Map.of(10, 100f, 20, 200f));
+
+        assertEquals(1f, a.dot(scaled), EPSILON);
+    }
+
+    @Test
+    void emptyAndZeroWeightsAreEmpty() {
+        assertSame(SparseVector.EMPTY, SparseVector.of(Map.of()));
+        assertSame(SparseVector.EMPTY, SparseVector.of(Map.of(1, 0f)));
+        assertTrue(SparseVector.EMPTY.isEmpty());
+        assertEquals(0f, SparseVector.EMPTY.dot(SparseVector.of(Map.of(1, 1f))), EPSILON);
+    }
+
+    @Test
+    void sizeCountsTerms() {
+        assertEquals(3, SparseVector.of(Map.of(7, 1f, 3, 1f, 5, 1f)).size());
+    }
+}
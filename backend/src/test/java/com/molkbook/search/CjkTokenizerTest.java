@@ -0,0 +1,55 @@
+package com.molkbook.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CjkTokenizerTest {
+
+    @Test
+    void splitsHanRunIntoOverlappingBigrams() {
+        assertEquals(List.of("城市", "市漫", "漫步"), CjkTokenizer.tokenize("城市漫步"));
+    }
+
+    @Test
+    void keepsSingleCjkCharacterAsUnigram() {
+        assertEquals(List.of("猫"), CjkTokenizer.tokenize("猫"));
+    }
+
+    @Test
+    void splitsMixedScriptsAtScriptBoundaries() {
+        assertEquals(List.of("java", "开发", "发者", "2026"), CjkTokenizer.tokenize("Java开发者2026"));
+    }
+
+    @Test
+    void treatsPunctuationAndSpacesAsSeparators() {
+        assertEquals(List.of("你好", "世界", "hello", "world"), CjkTokenizer.tokenize("你好，世界！ Hello, world 🎉"));
+    }
+
+    @Test
+    void bigramsDoNotCrossPunctuation() {
+        assertEquals(List.of("东京", "大阪"), CjkTokenizer.tokenize("东京、大阪"));
+    }
+
+    @Test
+    void handlesKanaAndHangul() {
+        assertEquals(List.of("カメ", "メラ"), CjkTokenizer.tokenize("カメラ"));
+        assertEquals(List.of("서울"), CjkTokenizer.tokenize("서울"));
+    }
+
+    @Test
+    void handlesSupplementaryHanCharacters() {
+        // 𠮷 在基本多文种平面之外，占两个 char
+        assertEquals(List.of("𠮷野", "野家"), CjkTokenizer.tokenize("𠮷野家"));
+    }
+
+    @Test
+    void emptyInputHasNoTokens() {
+        assertTrue(CjkTokenizer.tokenize(null).isEmpty());
+        assertTrue(CjkTokenizer.tokenize("").isEmpty());
+        assertTrue(CjkTokenizer.tokenize("。，！ ").isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package com.molkbook.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+    private final SearchIndex index = new SearchIndex();
+
+    @Test
+    void matchesChineseQueryThroughBigrams() {
+        index.addPost(1L, "周末去城市漫步，拍了很多照片");
+        index.addPost(2L, "今天在家写代码");
+
+        SearchIndex.SearchResult result = index.search("城市漫步", null, 0, 10);
+
+        assertEquals(1, result.total);
+        assertEquals(1L, result.hits.get(0).id);
+    }
+
+    @Test
+    void rarerTermScoresHigher() {
+        index.addPost(1L, "咖啡 咖啡");
+        index.addPost(2L, "咖啡 摄影");
+        index.addPost(3L, "咖啡 旅行");
+
+        SearchIndex.SearchResult result = index.search("咖啡 摄影", null, 0, 10);
+
+        assertEquals(3, result.total);
+        assertEquals(2L, result.hits.get(0).id);
+    }
+
+    @Test
+    void shorterDocumentScoresHigherForSameTermFrequency() {
+        index.addPost(1L, "java");
+        index.addPost(2L, "java spring boot hibernate jackson lombok");
+        index.addPost(3L, "python");
+
+        List<Long> ids = ids(index.search("java", null, 0, 10));
+
+        assertEquals(List.of(1L, 2L), ids);
+    }
+
+    @Test
+    void termFrequencySaturates() {
+        index.addPost(1L, "猫 猫 猫 猫 猫 猫 猫 猫 猫 猫");
+        index.addPost(2L, "猫");
+        index.addPost(3L, "狗");
+
+        SearchIndex.SearchResult result = index.search("猫", null, 0, 10);
+
+        // k1 = 1.2 时词频的贡献上限为 (k1 + 1) 倍 idf
+        assertTrue(result.hits.get(0).score < 2.2 * result.hits.get(1).score);
+    }
+
+    @Test
+    void mixedScriptQueryMatchesBothParts() {
+        index.addPost(1L, "学习 Java 开发");
+        index.addPost(2L, "学习 Go 开发");
+
+        assertEquals(List.of(1L, 2L), ids(index.search("java开发", null, 0, 10)));
+    }
+
+    @Test
+    void filtersByTypeAndPaginates() {
+        index.addPost(1L, "旅行日记");
+        index.addComment(1L, "旅行日记写得好");
+        index.addComment(2L, "我也想去旅行");
+
+        SearchIndex.SearchResult comments = index.search("旅行", SearchIndex.DocType.COMMENT, 0, 1);
+
+        assertEquals(2, comments.total);
+        assertEquals(1, comments.hits.size());
+        assertEquals(SearchIndex.DocType.COMMENT, comments.hits.get(0).type);
+        assertEquals(1, index.search("旅行", SearchIndex.DocType.POST, 0, 10).total);
+    }
+
+    @Test
+    void ignoresDuplicateAdds() {
+        index.addPost(1L, "重复内容");
+        index.addPost(1L, "重复内容");
+
+        assertEquals(1, index.getDocumentCount());
+        assertEquals(1, index.search("重复", null, 0, 10).total);
+    }
+
+    @Test
+    void queryWithoutTokensMatchesNothing() {
+        index.addPost(1L, "内容");
+
+        assertEquals(0, index.search("！？", null, 0, 10).total);
+    }
+
+    private static List<Long> ids(SearchIndex.SearchResult result) {
+        return result.hits.stream().map(hit -> hit.id).collect(Collectors.toList());
+    }
+}
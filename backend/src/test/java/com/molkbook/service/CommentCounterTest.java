@@ -0,0 +1,94 @@
+package com.molkbook.service;
+
+import com.molkbook.entity.Comment;
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 生成接口在请求线程加载帖子，生成期间的点赞 / 评论不能被保存评论时写回的旧计数覆盖
+ * 点赞、取消点赞和评论并发时各自原子地更新计数，互不覆盖
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false"
+})
+@ActiveProfiles("local")
+class CommentCounterTest {
+
+    private static final int CONCURRENT_USERS = 8;
+
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void staleLoadedPostDoesNotOverwriteCounters() {
+        User author = userRepository.save(User.builder().secondmeToken("counter-author").name("author").build());
+        User liker = userRepository.save(User.builder().secondmeToken("counter-liker").name("liker").build());
+        Post stale = postRepository.save(Post.builder().user(author).content("hello").topic("tech").build());
+
+        postService.likePost(stale.getId(), liker);
+        Comment comment = commentService.createComment(stale, liker, "first");
+        commentService.createReply(stale, author, "second", comment);
+
+        Post current = postRepository.findById(stale.getId()).orElseThrow();
+        assertEquals(1, current.getLikeCount());
+        assertEquals(2, current.getCommentCount());
+    }
+
+    @Test
+    void concurrentLikesAndCommentsKeepEveryIncrement() throws Exception {
+        User author = userRepository.save(User.builder().secondmeToken("race-author").name("author").build());
+        Post post = postRepository.save(Post.builder().user(author).content("hello").topic("tech").build());
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_USERS; i++) {
+            users.add(userRepository.save(User.builder().secondmeToken("race-" + i).name("racer").build()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_USERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (User user : users) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    postService.likePost(post.getId(), user);
+                    commentService.createComment(post, user, "racing");
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        postService.unlikePost(post.getId(), users.get(0));
+
+        Post current = postRepository.findById(post.getId()).orElseThrow();
+        assertEquals(CONCURRENT_USERS - 1, current.getLikeCount());
+        assertEquals(CONCURRENT_USERS, current.getCommentCount());
+    }
+}
@@ -0,0 +1,80 @@
+package com.molkbook.service;
+
+import com.molkbook.entity.Comment;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommentPathTest {
+
+    @Test
+    void rootCommentStartsItsOwnThread() {
+        Comment root = assigned(Comment.builder().id(42L).build());
+
+        assertEquals(42L, root.getRootId());
+        assertEquals(0, root.getDepth());
+        assertEquals("00000016", root.getPath());
+    }
+
+    @Test
+    void replyExtendsParentPath() {
+        Comment root = assigned(Comment.builder().id(1L).build());
+        Comment reply = assigned(Comment.builder().id(36L).parent(root).build());
+
+        assertEquals(1L, reply.getRootId());
+        assertEquals(1, reply.getDepth());
+        assertEquals("00000001" + "00000010", reply.getPath());
+    }
+
+    @Test
+    void missingParentPathIsComputedOnDemand() {
+        Comment root = Comment.builder().id(1L).build();
+        Comment parent = Comment.builder().id(2L).parent(root).build();
+        Comment reply = assigned(Comment.builder().id(3L).parent(parent).build());
+
+        assertEquals("00000001", root.getPath());
+        assertEquals("0000000100000002", parent.getPath());
+        assertEquals("000000010000000200000003", reply.getPath());
+        assertEquals(2, reply.getDepth());
+    }
+
+    @Test
+    void commentAtMaxDepthRejectsReplies() {
+        Comment comment = Comment.builder().id(1L).build();
+        assigned(comment);
+        for (long id = 2; id <= CommentPath.MAX_DEPTH + 1; id++) {
+            comment = assigned(Comment.builder().id(id).parent(comment).build());
+        }
+
+        assertEquals(CommentPath.MAX_DEPTH, comment.getDepth());
+        assertTrue(comment.getPath().length() <= 255);
+        assertFalse(CommentPath.acceptsReplies(comment));
+        assertTrue(CommentPath.acceptsReplies(comment.getParent()));
+        assertTrue(CommentPath.acceptsReplies(Comment.builder().id(99L).build()));
+    }
+
+    @Test
+    void subtreeEndIsNextSibling() {
+        assertEquals("0000000100000003", CommentPath.subtreeEnd("0000000100000002"));
+        assertEquals("00000001" + "00000010", CommentPath.subtreeEnd("00000001" + "0000000z"));
+    }
+
+    @Test
+    void cursorMustBeInsideSubtree() {
+        String path = "00000001";
+
+        assertTrue(CommentPath.isWithinSubtree(path, "0000000100000002"));
+        assertFalse(CommentPath.isWithinSubtree(path, path));
+        assertFalse(CommentPath.isWithinSubtree(path, "0000000200000003"));
+        assertFalse(CommentPath.isWithinSubtree(path, "000000010000002"));
+        assertFalse(CommentPath.isWithinSubtree(path, "00000001000000-2"));
+        assertFalse(CommentPath.isWithinSubtree(path, "00000001ZZZZZZZZ"));
+    }
+
+    private static Comment assigned(Comment comment) {
+        CommentPath.assign(comment);
+        return comment;
+    }
+}
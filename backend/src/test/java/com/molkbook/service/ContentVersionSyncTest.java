@@ -0,0 +1,84 @@
+package com.molkbook.service;
+
+import com.molkbook.entity.ContentVersion;
+import com.molkbook.repository.ContentVersionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 其他实例的写入通过 content_versions 同步到本实例的版本戳，时钟落后的实例写入的变化也不会丢失
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false"
+})
+@ActiveProfiles("local")
+class ContentVersionSyncTest {
+
+    @Autowired
+    private ContentVersionTracker contentVersionTracker;
+    @Autowired
+    private ContentVersionRepository contentVersionRepository;
+
+    @Test
+    void remoteWriteFromSlowerClockChangesLocalVersion() {
+        long postId = 910001L;
+        contentVersionTracker.sync();
+        long postVersion = contentVersionTracker.postVersion(postId);
+        long feedVersion = contentVersionTracker.feedVersion();
+
+        // 另一个实例写入，时钟比本实例慢 5 秒
+        contentVersionRepository.saveAndFlush(new ContentVersion("post:" + postId, System.currentTimeMillis() - 5000));
+        contentVersionTracker.sync();
+
+        assertTrue(contentVersionTracker.postVersion(postId) > postVersion);
+        assertTrue(contentVersionTracker.feedVersion() > feedVersion);
+    }
+
+    @Test
+    void remoteUserWriteChangesPostDetailVersion() {
+        long postId = 910002L;
+        long userId = 910003L;
+        contentVersionTracker.sync();
+        long postVersion = contentVersionTracker.postVersion(postId);
+        long userVersion = contentVersionTracker.userVersion(userId);
+
+        contentVersionRepository.saveAndFlush(new ContentVersion("user:" + userId, System.currentTimeMillis()));
+        contentVersionTracker.sync();
+
+        assertTrue(contentVersionTracker.userVersion(userId) > userVersion);
+        // 帖子详情中嵌套了用户信息
+        assertTrue(contentVersionTracker.postVersion(postId) > postVersion);
+    }
+
+    @Test
+    void localWriteIsPublishedAndNotAppliedTwice() {
+        long postId = 910004L;
+        contentVersionTracker.postChanged(postId);
+        contentVersionTracker.sync();
+        long version = contentVersionTracker.postVersion(postId);
+
+        assertTrue(contentVersionRepository.findById("post:" + postId).isPresent());
+        contentVersionTracker.sync();
+        assertEquals(version, contentVersionTracker.postVersion(postId));
+    }
+
+    @Test
+    void sharedVersionAdvancesEvenWhenWriterClockIsBehind() {
+        String key = "post:910005";
+        long ahead = System.currentTimeMillis() + 60_000;
+        contentVersionRepository.saveAndFlush(new ContentVersion(key, ahead));
+
+        contentVersionRepository.advance(key, System.currentTimeMillis());
+
+        long stored = contentVersionRepository.findById(key).orElseThrow().getVersion();
+        assertNotEquals(ahead, stored);
+        assertEquals(ahead + 1, stored);
+    }
+}
@@ -0,0 +1,39 @@
+package com.molkbook.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FeedCursorTest {
+
+    @Test
+    void roundTrips() {
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2026, 1, 2, 3, 4, 5, 6_000_000), 123L);
+
+        FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+        assertEquals(cursor.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(cursor.getId(), decoded.getId());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "not base64!", "%%%"})
+    void rejectsInvalidBase64(String cursor) {
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(cursor));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2026-01-02T03:04:05", "yesterday|1", "2026-01-02T03:04:05|abc", "2026-01-02T03:04:05|", "|1"})
+    void rejectsMalformedContent(String raw) {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(cursor));
+    }
+}
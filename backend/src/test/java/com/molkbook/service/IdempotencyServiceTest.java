@@ -0,0 +1,132 @@
+package com.molkbook.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyService service = new IdempotencyService(600, 100);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void replaysCompletedResponse() {
+        ResponseEntity<String> first = service.execute(1L, "generate-post", "key", ok()).join();
+        ResponseEntity<String> retry = service.execute(1L, "generate-post", "key", ok()).join();
+
+        assertEquals(1, executions.get());
+        assertEquals("result-1", retry.getBody());
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void retryWhileInFlightSharesTheResult() {
+        CompletableFuture<ResponseEntity<String>> pending = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<String>> first = service.execute(1L, "generate-post", "key", () -> {
+            executions.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<ResponseEntity<String>> retry = service.execute(1L, "generate-post", "key", ok());
+
+        assertFalse(retry.isDone());
+        pending.complete(ResponseEntity.ok("done"));
+
+        assertEquals(1, executions.get());
+        assertEquals("done", first.join().getBody());
+        assertEquals("done", retry.join().getBody());
+        assertEquals("true", retry.join().getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void sameKeyForAnotherUserOrOperationExecutesSeparately() {
+        service.execute(1L, "generate-comment:1", "key", ok()).join();
+        ResponseEntity<String> otherUser = service.execute(2L, "generate-comment:1", "key", ok()).join();
+        ResponseEntity<String> otherTarget = service.execute(1L, "generate-comment:2", "key", ok()).join();
+
+        assertEquals(3, executions.get());
+        assertEquals("result-2", otherUser.getBody());
+        assertEquals("result-3", otherTarget.getBody());
+    }
+
+    @Test
+    void serverErrorsAreNotStored() {
+        service.execute(1L, "generate-post", "key", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("busy"));
+        }).join();
+        ResponseEntity<String> retry = service.execute(1L, "generate-post", "key", ok()).join();
+
+        assertEquals(2, executions.get());
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertNull(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void failuresAreNotStored() {
+        CompletableFuture<ResponseEntity<String>> failed = service.execute(1L, "generate-post", "key",
+                () -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        assertThrows(CompletionException.class, failed::join);
+
+        assertThrows(IllegalStateException.class, () -> service.execute(1L, "generate-post", "key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals("result-1", service.execute(1L, "generate-post", "key", ok()).join().getBody());
+        assertEquals(1, service.getSize());
+    }
+
+    @Test
+    void expiredResponseIsExecutedAgain() {
+        IdempotencyService shortLived = new IdempotencyService(0, 100);
+
+        shortLived.execute(1L, "generate-post", "key", ok()).join();
+        ResponseEntity<String> retry = shortLived.execute(1L, "generate-post", "key", ok()).join();
+
+        assertEquals(2, executions.get());
+        assertNull(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void withoutKeyAlwaysExecutes() {
+        service.execute(1L, "generate-post", null, ok()).join();
+        service.execute(1L, "generate-post", null, ok()).join();
+
+        assertEquals(2, executions.get());
+        assertEquals(0, service.getSize());
+    }
+
+    @Test
+    void rejectsBlankOrOverlongKeys() {
+        assertThrows(IllegalArgumentException.class, () -> service.execute(1L, "generate-post", " ", ok()));
+        assertThrows(IllegalArgumentException.class, () -> service.execute(1L, "generate-post", "k".repeat(256), ok()));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void fullStoreExecutesWithoutKey() {
+        IdempotencyService tiny = new IdempotencyService(600, 1);
+        tiny.execute(1L, "generate-post", "first", ok()).join();
+
+        tiny.execute(1L, "generate-post", "second", ok()).join();
+        tiny.execute(1L, "generate-post", "second", ok()).join();
+
+        assertEquals(3, executions.get());
+        assertTrue(tiny.getSize() <= 1);
+    }
+
+    private Supplier<CompletableFuture<ResponseEntity<String>>> ok() {
+        return () -> CompletableFuture.completedFuture(ResponseEntity.ok("result-" + executions.incrementAndGet()));
+    }
+}
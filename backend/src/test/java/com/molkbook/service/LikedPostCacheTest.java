@@ -0,0 +1,65 @@
+package com.molkbook.service;
+
+import com.molkbook.repository.PostLikeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikedPostCacheTest {
+
+    private final PostLikeRepository postLikeRepository = mock(PostLikeRepository.class);
+    private final LikedPostCache cache = new LikedPostCache(postLikeRepository, 300, 100);
+
+    @Test
+    void loadsOncePerUser() {
+        when(postLikeRepository.findPostIdsByUserId(1L)).thenReturn(List.of(10L, 20L));
+
+        assertTrue(cache.isLiked(1L, 10L));
+        assertFalse(cache.isLiked(1L, 30L));
+        verify(postLikeRepository, times(1)).findPostIdsByUserId(1L);
+    }
+
+    @Test
+    void markLikedBeforeLoadIsLeftToTheLoad() {
+        cache.markLiked(1L, 10L);
+        when(postLikeRepository.findPostIdsByUserId(1L)).thenReturn(List.of());
+
+        assertFalse(cache.isLiked(1L, 10L));
+    }
+
+    @Test
+    void markLikedDuringLoadIsNotOverwritten() throws Exception {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        // 加载读到的是提交前的数据，查询返回前点赞提交并调用 markLiked
+        when(postLikeRepository.findPostIdsByUserId(1L)).thenAnswer(invocation -> {
+            committed.complete(null);
+            Thread.sleep(100);
+            return List.of();
+        });
+        CompletableFuture<Void> mark = committed.thenRunAsync(() -> cache.markLiked(1L, 10L));
+
+        cache.isLiked(1L, 10L);
+        mark.get(5, TimeUnit.SECONDS);
+
+        assertTrue(cache.isLiked(1L, 10L));
+    }
+
+    @Test
+    void markUnlikedRemovesLoadedLike() {
+        when(postLikeRepository.findPostIdsByUserId(1L)).thenReturn(List.of(10L));
+        assertTrue(cache.isLiked(1L, 10L));
+
+        cache.markUnliked(1L, 10L);
+
+        assertFalse(cache.isLiked(1L, 10L));
+    }
+}
@@ -0,0 +1,64 @@
+package com.molkbook.service;
+
+import com.molkbook.entity.Post;
+import com.molkbook.entity.User;
+import com.molkbook.repository.PostRepository;
+import com.molkbook.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 点赞缓存过期或落后时，重复点赞由 post_likes 的唯一约束拒绝，不返回 500，也不重复计数
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=test-secret-key-that-is-long-enough-for-hs256-signing",
+        "scheduler.like-generation.enabled=false"
+})
+@ActiveProfiles("local")
+class PostLikeConstraintTest {
+
+    // 始终未命中，模拟过期的缓存
+    @MockBean
+    private LikedPostCache likedPostCache;
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void duplicateLikeWithStaleCacheIsRejected() {
+        User author = userRepository.save(User.builder().secondmeToken("author").name("author").build());
+        User liker = userRepository.save(User.builder().secondmeToken("liker").name("liker").build());
+        Post post = postRepository.save(Post.builder().user(author).content("hello").topic("tech").build());
+
+        assertTrue(postService.likePost(post.getId(), liker));
+        assertFalse(postService.likePost(post.getId(), liker));
+
+        assertEquals(1, postRepository.findById(post.getId()).orElseThrow().getLikeCount());
+    }
+
+    @Test
+    void unlikeWithoutLikeChangesNothing() {
+        User author = userRepository.save(User.builder().secondmeToken("author-2").name("author").build());
+        User liker = userRepository.save(User.builder().secondmeToken("liker-2").name("liker").build());
+        Post post = postRepository.save(Post.builder().user(author).content("hello").topic("tech").build());
+        when(likedPostCache.isLiked(liker.getId(), post.getId())).thenReturn(true);
+
+        assertFalse(postService.unlikePost(post.getId(), liker));
+
+        verify(likedPostCache, never()).markUnliked(liker.getId(), post.getId());
+    }
+}
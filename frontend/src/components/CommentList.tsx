@@ -1,7 +1,33 @@
+import { useState, useEffect } from 'react';
 import { Link } from 'react-router-dom';
 import type { Comment, User } from '../types';
+import { comments as commentsApi } from '../services/api';
 import UserAvatar from './UserAvatar';
 
+// 统计已加载的回复数（含嵌套）
+function countReplies(replies: Comment[]): number {
+  return replies.reduce((total, reply) => total + 1 + countReplies(reply.replies || []), 0);
+}
+
+// 把按展示顺序返回的扁平子树合并进嵌套回复，先序遍历保证父评论先出现
+function mergeReplies(threadId: number, replies: Comment[], page: Comment[]): Comment[] {
+  const byId = new Map<number, Comment>();
+  const clone = (comment: Comment): Comment => {
+    const copy = { ...comment, replies: (comment.replies || []).map(clone) };
+    byId.set(copy.id, copy);
+    return copy;
+  };
+  const root = clone({ id: threadId, replies } as Comment);
+  for (const comment of page) {
+    if (byId.has(comment.id)) continue;
+    const node = { ...comment, replies: [] };
+    const parent = byId.get(comment.parentId ?? threadId) || root;
+    parent.replies!.push(node);
+    byId.set(node.id, node);
+  }
+  return root.replies!;
+}
+
 interface CommentItemProps {
   comment: Comment;
   postId: number;
@@ -11,6 +37,32 @@ interface CommentItemProps {
 }
 
 function CommentItem({ comment, postId, depth = 0, onReply, currentUser }: CommentItemProps) {
+  // 回复按需展开：初始为线程预览中的前几条，其余按展示顺序分页加载整个子树
+  const [replies, setReplies] = useState<Comment[]>(comment.replies || []);
+  const [repliesCursor, setRepliesCursor] = useState(comment.repliesCursor);
+  const [loadingReplies, setLoadingReplies] = useState(false);
+
+  useEffect(() => {
+    setReplies(comment.replies || []);
+    setRepliesCursor(comment.repliesCursor);
+  }, [comment]);
+
+  // replyCount 是整个线程的回复总数，只在顶级评论上展示加载按钮
+  const remainingReplies = depth === 0 ? (comment.replyCount ?? 0) - countReplies(replies) : 0;
+
+  const loadReplies = async () => {
+    setLoadingReplies(true);
+    try {
+      const result = await commentsApi.getReplies(postId, comment.id, replies.length > 0 ? repliesCursor : undefined);
+      setReplies((prev) => mergeReplies(comment.id, prev, result.content));
+      setRepliesCursor(result.nextCursor);
+    } catch (error) {
+      console.error('Failed to load replies:', error);
+    } finally {
+      setLoadingReplies(false);
+    }
+  };
+
   const formatTime = (dateStr: string) => {
     const date = new Date(dateStr);
     const now = new Date();
@@ -98,9 +150,9 @@ function CommentItem({ comment, postId, depth = 0, onReply, currentUser }: Comme
       </div>
 
       {/* Nested replies */}
-      {comment.replies && comment.replies.length > 0 && canNest && (
+      {replies.length > 0 && canNest && (
         <div className="space-y-3">
-          {comment.replies.map((reply) => (
+          {replies.map((reply) => (
             <CommentItem
               key={reply.id}
               comment={reply}
@@ -114,12 +166,12 @@ function CommentItem({ comment, postId, depth = 0, onReply, currentUser }: Comme
       )}
 
       {/* Show flat replies if max depth reached */}
-      {comment.replies && comment.replies.length > 0 && !canNest && (
+      {replies.length > 0 && !canNest && (
         <div className="ml-8 mt-3 p-3 bg-[var(--bg-elevated)]/20 rounded border border-[var(--border)]/30">
           <p className="text-[10px] font-['Space_Mono'] text-[var(--text-muted)] mb-2">
-            +{comment.replies.length} more {comment.replies.length === 1 ? 'reply' : 'replies'}
+            +{replies.length} more {replies.length === 1 ? 'reply' : 'replies'}
           </p>
-          {comment.replies.map((reply) => (
+          {replies.map((reply) => (
             <div key={reply.id} className="py-2 border-t border-[var(--border)]/30 first:border-t-0">
               <div className="flex items-center gap-2 mb-1">
                 <span className="font-['Orbitron'] text-[10px] text-[var(--text-primary)]">
@@ -136,6 +188,19 @@ function CommentItem({ comment, postId, depth = 0, onReply, currentUser }: Comme
           ))}
         </div>
       )}
+
+      {/* Load remaining replies */}
+      {remainingReplies > 0 && (
+        <button
+          onClick={loadReplies}
+          disabled={loadingReplies}
+          className="ml-8 mt-2 text-[10px] font-['Space_Mono'] text-[var(--text-muted)] hover:text-[var(--neon-cyan)] transition-colors"
+        >
+          {loadingReplies
+            ? 'LOADING...'
+            : `VIEW ${remainingReplies} MORE ${remainingReplies === 1 ? 'REPLY' : 'REPLIES'}`}
+        </button>
+      )}
     </div>
   );
 }
@@ -47,6 +47,28 @@ export function useAuth() {
     localStorage.setItem('user', JSON.stringify(userData));
     setUser(userData);
     setIsAuthenticated(true);
+    pollProfileSync();
+  };
+
+  // 登录后资料在后台同步，轮询直到完成后刷新用户信息
+  const pollProfileSync = async (attempt = 0) => {
+    if (attempt >= 30) {
+      return;
+    }
+    try {
+      const result = await auth.getProfileSync();
+      if ((result.status === 'COMPLETED' || result.status === 'DEFERRED') && result.user) {
+        localStorage.setItem('user', JSON.stringify(result.user));
+        setUser(result.user);
+        return;
+      }
+      if (result.status === 'FAILED') {
+        return;
+      }
+    } catch {
+      return;
+    }
+    setTimeout(() => pollProfileSync(attempt + 1), 1000);
   };
 
   return {
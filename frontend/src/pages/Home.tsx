@@ -1,6 +1,6 @@
 import { useState, useEffect, useRef } from 'react';
 import type { Post, User } from '../types';
-import { posts, SortBy } from '../services/api';
+import { posts, events, SortBy } from '../services/api';
 import PostCard from '../components/PostCard';
 
 interface HomeProps {
@@ -9,6 +9,7 @@ interface HomeProps {
 
 const SORT_OPTIONS: { value: SortBy; label: string; icon: string }[] = [
   { value: 'newest', label: 'LATEST', icon: 'M12 8v4l3 3m6-3a9 9 0 11-18 0 9 9 0 0118 0z' },
+  { value: 'foryou', label: 'FOR YOU', icon: 'M11.049 2.927c.3-.921 1.603-.921 1.902 0l1.519 4.674a1 1 0 00.95.69h4.915c.969 0 1.371 1.24.588 1.81l-3.976 2.888a1 1 0 00-.363 1.118l1.518 4.674c.3.922-.755 1.688-1.538 1.118l-3.976-2.888a1 1 0 00-1.176 0l-3.976 2.888c-.783.57-1.838-.197-1.538-1.118l1.518-4.674a1 1 0 00-.363-1.118l-3.976-2.888c-.784-.57-.38-1.81.588-1.81h4.914a1 1 0 00.951-.69l1.519-4.674z' },
   { value: 'hot', label: 'HOT', icon: 'M17.657 18.657A8 8 0 016.343 7.343S7 9 9 10c0-2 .5-5 2.986-7C14 5 16.09 5.777 17.656 7.343A7.975 7.975 0 0120 13a7.975 7.975 0 01-2.343 5.657z' },
   { value: 'likes', label: 'TOP LIKED', icon: 'M4.318 6.318a4.5 4.5 0 000 6.364L12 20.364l7.682-7.682a4.5 4.5 0 00-6.364-6.364L12 7.636l-1.318-1.318a4.5 4.5 0 00-6.364 0z' },
   { value: 'comments', label: 'MOST DISCUSSED', icon: 'M8 12h.01M12 12h.01M16 12h.01M21 12c0 4.418-4.03 8-9 8a9.863 9.863 0 01-4.255-.949L3 20l1.395-3.72C3.512 15.042 3 13.574 3 12c0-4.418 4.03-8 9-8s9 3.582 9 8z' },
@@ -24,18 +25,41 @@ export default function Home({ user }: HomeProps) {
   const [page, setPage] = useState(0);
   const [hasMore, setHasMore] = useState(true);
   const [sortBy, setSortBy] = useState<SortBy>('newest');
+  const [newPostCount, setNewPostCount] = useState(0);
   const abortRef = useRef<(() => void) | null>(null);
 
   useEffect(() => {
     loadPosts(0, sortBy);
   }, [sortBy]);
 
+  // 实时事件：计数变化直接合并到列表，新帖子只提示，点击后刷新
+  useEffect(() => {
+    return events.subscribe({
+      onDelta: (delta) => {
+        if (delta.counters.length > 0) {
+          const counters = new Map(delta.counters.map((c) => [c.id, c]));
+          setPostList((prev) =>
+            prev.map((post) => {
+              const c = counters.get(post.id);
+              return c ? { ...post, likeCount: c.likeCount, commentCount: c.commentCount } : post;
+            })
+          );
+        }
+        if (delta.posts.length > 0) {
+          setNewPostCount((count) => count + delta.posts.length);
+        }
+      },
+      onResync: () => loadPosts(0, sortBy),
+    });
+  }, [sortBy]);
+
   const loadPosts = async (pageNum = 0, sort: SortBy = sortBy) => {
     try {
       setLoading(true);
       const result = await posts.getList(pageNum, 20, sort);
       if (pageNum === 0) {
         setPostList(result.content);
+        setNewPostCount(0);
       } else {
         setPostList((prev) => [...prev, ...result.content]);
       }
@@ -303,6 +327,13 @@ export default function Home({ user }: HomeProps) {
         </div>
       )}
 
+      {/* New posts notice */}
+      {newPostCount > 0 && (
+        <button onClick={() => loadPosts(0)} className="btn btn-secondary w-full fade-in">
+          {newPostCount} NEW TRANSMISSIONS
+        </button>
+      )}
+
       {/* Post List */}
       {loading && postList.length === 0 ? (
         <div className="card card-corners p-12 text-center">
@@ -13,6 +13,8 @@ export default function PostDetail({ user }: PostDetailProps) {
   const { id } = useParams<{ id: string }>();
   const [post, setPost] = useState<Post | null>(null);
   const [commentList, setCommentList] = useState<Comment[]>([]);
+  const [commentsCursor, setCommentsCursor] = useState<string | undefined>();
+  const [loadingThreads, setLoadingThreads] = useState(false);
   const [loading, setLoading] = useState(true);
   const [generatingComment, setGeneratingComment] = useState(false);
   const [streamingComment, setStreamingComment] = useState('');
@@ -34,6 +36,7 @@ export default function PostDetail({ user }: PostDetailProps) {
       const postData = await posts.getById(postId);
       setPost(postData);
       setCommentList(postData.comments || []);
+      setCommentsCursor(postData.commentsCursor);
     } catch (error) {
       console.error('Failed to load post:', error);
     } finally {
@@ -41,6 +44,21 @@ export default function PostDetail({ user }: PostDetailProps) {
     }
   };
 
+  // 详情只返回前几个评论线程，其余按游标继续加载
+  const loadMoreThreads = async () => {
+    if (!post || !commentsCursor) return;
+    setLoadingThreads(true);
+    try {
+      const result = await comments.getThreads(post.id, commentsCursor);
+      setCommentList((prev) => [...prev, ...result.content]);
+      setCommentsCursor(result.nextCursor);
+    } catch (error) {
+      console.error('Failed to load comments:', error);
+    } finally {
+      setLoadingThreads(false);
+    }
+  };
+
   const handleGenerateComment = async () => {
     if (!post || !user) return;
 
@@ -284,7 +302,7 @@ export default function PostDetail({ user }: PostDetailProps) {
             <svg className="w-4 h-4" fill="none" stroke="currentColor" viewBox="0 0 24 24">
               <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={1.5} d="M8 12h.01M12 12h.01M16 12h.01M21 12c0 4.418-4.03 8-9 8a9.863 9.863 0 01-4.255-.949L3 20l1.395-3.72C3.512 15.042 3 13.574 3 12c0-4.418 4.03-8 9-8s9 3.582 9 8z" />
             </svg>
-            <span>{commentList.length} RESPONSES</span>
+            <span>{post.commentCount} RESPONSES</span>
           </div>
         </div>
       </article>
@@ -298,7 +316,7 @@ export default function PostDetail({ user }: PostDetailProps) {
               NEURAL RESPONSES
             </h3>
             <p className="text-xs font-['Space_Mono'] text-[var(--text-muted)] mt-1">
-              {commentList.length} transmissions received
+              {post.commentCount} transmissions received
             </p>
           </div>
           <div className="flex gap-3">
@@ -479,6 +497,14 @@ export default function PostDetail({ user }: PostDetailProps) {
           onReply={handleReplyClick}
           currentUser={user}
         />
+
+        {commentsCursor && (
+          <div className="text-center pt-6">
+            <button onClick={loadMoreThreads} disabled={loadingThreads} className="btn btn-secondary">
+              {loadingThreads ? 'LOADING...' : 'LOAD MORE RESPONSES'}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );
@@ -1,4 +1,4 @@
-import type { User, Post, Comment, PageResponse, AuthResponse } from '../types';
+import type { User, Post, Comment, PageResponse, CursorPageResponse, AuthResponse, ProfileSyncResponse, SearchResult, SearchType, FeedDelta } from '../types';
 
 // 生产环境使用环境变量，开发环境使用代理
 const API_BASE = import.meta.env.VITE_API_URL || '/api';
@@ -43,6 +43,8 @@ export const auth = {
 
   verify: () => request<{ valid: boolean; user?: User }>('/auth/verify'),
 
+  getProfileSync: () => request<ProfileSyncResponse>('/auth/profile-sync'),
+
   logout: () => {
     localStorage.removeItem('token');
     localStorage.removeItem('user');
@@ -57,7 +59,7 @@ export const users = {
 };
 
 // 帖子相关
-export type SortBy = 'newest' | 'likes' | 'comments' | 'hot';
+export type SortBy = 'newest' | 'likes' | 'comments' | 'hot' | 'foryou';
 
 // 流式生成回调类型
 export interface StreamCallbacks {
@@ -66,14 +68,22 @@ export interface StreamCallbacks {
   onError: (error: string) => void;
 }
 
+// 帖子卡片用到的字段，用户主页的帖子列表只请求这些（不含作者简介和计数）
+const POST_CARD_FIELDS = 'id,user(id,name,avatar),content,topic,aiGenerated,createdAt,likeCount,commentCount';
+
 export const posts = {
   getList: (page = 0, size = 20, sortBy: SortBy = 'newest') =>
     request<PageResponse<Post>>(`/posts?page=${page}&size=${size}&sortBy=${sortBy}`),
 
+  getByTopic: (topic: string, cursor?: string, size = 20) =>
+    request<CursorPageResponse<Post>>(
+      `/posts?topic=${encodeURIComponent(topic)}&size=${size}${cursor ? `&cursor=${encodeURIComponent(cursor)}` : ''}`
+    ),
+
   getById: (id: number) => request<Post>(`/posts/${id}`),
 
   getUserPosts: (userId: number, page = 0, size = 20) =>
-    request<PageResponse<Post>>(`/posts/user/${userId}?page=${page}&size=${size}`),
+    request<PageResponse<Post>>(`/posts/user/${userId}?page=${page}&size=${size}&fields=${POST_CARD_FIELDS}`),
 
   generate: () =>
     request<{ success: boolean; post?: Post; error?: string }>('/posts/generate', {
@@ -160,6 +170,18 @@ export const comments = {
   getByPostId: (postId: number, page = 0, size = 50) =>
     request<PageResponse<Comment>>(`/posts/${postId}/comments?page=${page}&size=${size}`),
 
+  // 继续获取评论线程（帖子详情返回的 commentsCursor）
+  getThreads: (postId: number, cursor: string, size = 20) =>
+    request<CursorPageResponse<Comment>>(
+      `/posts/${postId}/comments?cursor=${encodeURIComponent(cursor)}&size=${size}`
+    ),
+
+  // 展开评论的子树，按展示顺序返回扁平列表，cursor 为空时从第一条开始
+  getReplies: (postId: number, commentId: number, cursor?: string, size = 20) =>
+    request<CursorPageResponse<Comment>>(
+      `/posts/${postId}/comments/${commentId}/replies?size=${size}${cursor ? `&cursor=${encodeURIComponent(cursor)}` : ''}`
+    ),
+
   generate: (postId: number) =>
     request<{ success: boolean; comment?: Comment; error?: string }>(
       `/posts/${postId}/comments/generate`,
@@ -320,3 +342,27 @@ export const comments = {
       { method: 'POST' }
     ),
 };
+
+// 搜索
+export const search = {
+  query: (q: string, type: SearchType = 'all', page = 0, size = 20) =>
+    request<PageResponse<SearchResult>>(
+      `/search?q=${encodeURIComponent(q)}&type=${type}&page=${page}&size=${size}`
+    ),
+};
+
+// Feed 实时事件（SSE），EventSource 断线后会自动重连
+export const events = {
+  subscribe: (callbacks: { onDelta: (delta: FeedDelta) => void; onResync: () => void }) => {
+    const source = new EventSource(`${API_BASE}/events`);
+    source.addEventListener('delta', (event) => {
+      try {
+        callbacks.onDelta(JSON.parse((event as MessageEvent).data));
+      } catch (e) {
+        console.error('Failed to parse feed delta:', e);
+      }
+    });
+    source.addEventListener('resync', () => callbacks.onResync());
+    return () => source.close();
+  },
+};
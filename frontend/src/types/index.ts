@@ -19,7 +19,8 @@ export interface Post {
   createdAt: string;
   likeCount: number;
   commentCount: number;
-  comments?: Comment[];
+  comments?: Comment[];       // 详情页只包含前几个评论线程
+  commentsCursor?: string;    // 还有更多线程时的游标
 }
 
 export interface Comment {
@@ -30,7 +31,9 @@ export interface Comment {
   createdAt: string;
   parentId?: number;         // 父评论ID
   replyToUser?: User;        // 被回复的用户
-  replies?: Comment[];       // 子评论列表
+  replies?: Comment[];       // 子评论列表（预览时只包含前几条）
+  replyCount?: number;       // 线程内回复总数（含嵌套）
+  repliesCursor?: string;    // 继续获取剩余回复的游标
 }
 
 export interface PageResponse<T> {
@@ -43,9 +46,40 @@ export interface PageResponse<T> {
   last: boolean;
 }
 
+export interface CursorPageResponse<T> {
+  content: T[];
+  nextCursor?: string;
+  hasMore: boolean;
+  size: number;
+}
+
+// /api/events 推送的增量
+export interface FeedDelta {
+  posts: number[];
+  counters: { id: number; likeCount: number; commentCount: number }[];
+}
+
+export type ProfileSyncStatus = 'PENDING' | 'RUNNING' | 'COMPLETED' | 'FAILED' | 'DEFERRED';
+
 export interface AuthResponse {
   success: boolean;
   token?: string;
   user?: User;
+  profileSync?: ProfileSyncStatus;
   error?: string;
 }
+
+export interface ProfileSyncResponse {
+  status: ProfileSyncStatus;
+  user?: User;
+}
+
+export type SearchType = 'all' | 'post' | 'comment';
+
+export interface SearchResult {
+  type: 'post' | 'comment';
+  score: number;
+  postId: number;
+  post?: Post;
+  comment?: Comment;
+}